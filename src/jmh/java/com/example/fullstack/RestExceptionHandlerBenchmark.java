@@ -0,0 +1,82 @@
+package com.example.fullstack;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.core.Response;
+import org.hibernate.HibernateException;
+import org.hibernate.ObjectNotFoundException;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cause-chain walking of {@link RestExceptionHandler#toResponse(HibernateException)} for each response class,
+ * with the matching exception buried {@code depth} wrappers deep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestExceptionHandlerBenchmark {
+
+    @Param({"0", "4", "16"})
+    int depth;
+
+    private final RestExceptionHandler handler = new RestExceptionHandler(new SimpleMeterRegistry());
+
+    private HibernateException notFound;
+    private HibernateException stale;
+    private HibernateException uniqueViolation;
+    private HibernateException other;
+
+    @Setup
+    public void setUp() {
+        notFound = wrap(new ObjectNotFoundException(1L, "Task"));
+        stale = wrap(new StaleObjectStateException("Task", 1L));
+        uniqueViolation = wrap(new ConstraintViolationException("duplicate",
+                new SQLException("duplicate", "23505"), "projects_name_user_id_key"));
+        other = wrap(new HibernateException("other"));
+    }
+
+    private HibernateException wrap(final HibernateException exception) {
+        HibernateException wrapped = exception;
+        for (int i = 0; i < depth; i++) {
+            wrapped = new HibernateException("wrapper " + i, wrapped);
+        }
+        return wrapped;
+    }
+
+    @Benchmark
+    public Response notFound() {
+        return handler.toResponse(notFound);
+    }
+
+    @Benchmark
+    public Response conflict() {
+        return handler.toResponse(stale);
+    }
+
+    @Benchmark
+    public Response uniqueViolation() {
+        return handler.toResponse(uniqueViolation);
+    }
+
+    @Benchmark
+    public Response badRequest() {
+        return handler.toResponse(other);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.fullstack;
+
+import com.example.fullstack.project.Project;
+import com.example.fullstack.task.Task;
+import com.example.fullstack.task.TaskView;
+import com.example.fullstack.user.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the list payloads returned by the REST resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    // Mirrors the defaults Quarkus applies to its ObjectMapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private List<Task> tasks;
+    private List<TaskView> taskViews;
+    private List<Project> projects;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        final var now = ZonedDateTime.now();
+        final var user = user(1L, now);
+        final var project = new Project();
+        project.id = 1L;
+        project.name = "Work";
+        project.user = user;
+        project.created = now;
+        tasks = new ArrayList<>(size);
+        taskViews = new ArrayList<>(size);
+        projects = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            final var task = new Task();
+            task.id = i;
+            task.title = "Task " + i;
+            task.description = "Description of task " + i;
+            task.priority = (int) (i % 5);
+            task.user = user;
+            task.project = project;
+            task.created = now;
+            tasks.add(task);
+            taskViews.add(new TaskView(task.id, task.title, task.description, task.priority, null, null, now, 0,
+                    user.id, user.name, project.id, project.name));
+            final var p = new Project();
+            p.id = i;
+            p.name = "Project " + i;
+            p.user = user;
+            p.created = now;
+            projects.add(p);
+            users.add(user(i, now));
+        }
+    }
+
+    private static User user(final long id, final ZonedDateTime created) {
+        final var user = new User();
+        user.id = id;
+        user.name = "user-" + id;
+        user.created = created;
+        user.roles = List.of("user");
+        user.setPassword("$2a$10$7b.9iLgXFVh.r1u9HEbMv.EDL3JcJgldsWHUg4etSUh4wCNGuExye");
+        return user;
+    }
+
+    @Benchmark
+    public byte[] tasks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] taskViews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(taskViews);
+    }
+
+    @Benchmark
+    public byte[] projects() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(projects);
+    }
+
+    @Benchmark
+    public byte[] users() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.fullstack.auth;
+
+import com.example.fullstack.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.ParseException;
+import io.smallrye.jwt.util.KeyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning a bearer token into a principal, with full verification and when served by
+ * {@link CachingJWTCallerPrincipalFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsmallrye.jwt.sign.key.location=jwt/private-key.pem")
+public class JwtVerificationBenchmark {
+
+    private static final String ISSUER = "https://example.com/issuer";
+
+    private String token;
+    private JWTAuthContextInfo contextInfo;
+    private DefaultJWTCallerPrincipalFactory uncached;
+    private CachingJWTCallerPrincipalFactory cached;
+
+    @Setup
+    public void setUp() throws Exception {
+        final var user = new User();
+        user.name = "user";
+        user.roles = List.of("user");
+        token = new AuthService(ISSUER, null, Duration.ofHours(1), Duration.ofDays(14), null).issueToken(user);
+        contextInfo = new JWTAuthContextInfo(KeyUtils.readPublicKey("jwt/public-key.pem"), ISSUER);
+        uncached = new DefaultJWTCallerPrincipalFactory();
+        cached = new CachingJWTCallerPrincipalFactory(new SimpleMeterRegistry(), 10_000);
+        cached.parse(token, contextInfo);
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal verify() throws ParseException {
+        return uncached.parse(token, contextInfo);
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal cachedVerify() throws ParseException {
+        return cached.parse(token, contextInfo);
+    }
+}
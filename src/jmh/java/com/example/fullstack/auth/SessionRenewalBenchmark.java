@@ -0,0 +1,65 @@
+package com.example.fullstack.auth;
+
+import com.example.fullstack.user.User;
+import io.quarkus.elytron.security.common.BcryptUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU spent by {@link AuthService} to renew a session, through a login against the bcrypt hash versus through
+ * a refresh token. Database round trips are left out, see the {@code refresh} and {@code login} scenarios
+ * of the load test for end-to-end numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsmallrye.jwt.sign.key.location=jwt/private-key.pem")
+public class SessionRenewalBenchmark {
+
+    private static final String PASSWORD = "quarkus";
+
+    private AuthService authService;
+    private User user;
+    private String passwordHash;
+    private String refreshToken;
+
+    @Setup
+    public void setUp() {
+        authService = new AuthService("https://example.com/issuer", null, Duration.ofMinutes(15), Duration.ofDays(14), null);
+        user = new User();
+        user.name = "user";
+        user.roles = List.of("user");
+        passwordHash = BcryptUtil.bcryptHash(PASSWORD);
+        refreshToken = RefreshToken.newValue();
+    }
+
+    @Benchmark
+    public String login() {
+        if (!BcryptUtil.matches(PASSWORD, passwordHash)) {
+            throw new IllegalStateException();
+        }
+        return authService.issueToken(user) + RefreshToken.newValue();
+    }
+
+    @Benchmark
+    public String refresh() {
+        // Lookup digest of the presented token, then the successor and its stored digest
+        final var lookup = Digests.sha256Hex(refreshToken);
+        final var successor = RefreshToken.newValue();
+        return lookup + Digests.sha256Hex(successor) + authService.issueToken(user);
+    }
+}
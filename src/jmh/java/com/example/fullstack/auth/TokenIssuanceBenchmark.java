@@ -0,0 +1,45 @@
+package com.example.fullstack.auth;
+
+import com.example.fullstack.user.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT issuance as done by {@link AuthService} after a successful login, signed with the application key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsmallrye.jwt.sign.key.location=jwt/private-key.pem")
+public class TokenIssuanceBenchmark {
+
+    private AuthService authService;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        authService = new AuthService("https://example.com/issuer", null, Duration.ofHours(1), Duration.ofDays(14), null);
+        user = new User();
+        user.name = "user";
+        user.roles = List.of("user");
+    }
+
+    @Benchmark
+    public String issueToken() {
+        return authService.issueToken(user);
+    }
+}
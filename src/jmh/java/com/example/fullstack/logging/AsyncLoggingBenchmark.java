@@ -0,0 +1,99 @@
+package com.example.fullstack.logging;
+
+import org.jboss.logmanager.LogContext;
+import org.jboss.logmanager.Logger;
+import org.jboss.logmanager.formatters.PatternFormatter;
+import org.jboss.logmanager.handlers.FileHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Handler;
+
+/**
+ * Latency a logging call adds to the calling thread, for example an event loop, with the file handler
+ * appending synchronously and behind an {@link AsyncLogHandler}. Several threads log at once so lock
+ * contention on the file handler shows up in the upper percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AsyncLoggingBenchmark {
+
+    @Param({"sync", "drop", "block"})
+    String mode;
+
+    private final LongAdder dropped = new LongAdder();
+    private File file;
+    private Handler fileHandler;
+    private AsyncLogHandler asyncHandler;
+    private Logger logger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("async-logging-benchmark", ".log");
+        final var handler = new FileHandler(file, false);
+        handler.setFormatter(new PatternFormatter("%d{yyyy-MM-dd HH:mm:ss,SSS} %-5p [%c{3.}] (%t) %s%e%n"));
+        fileHandler = handler;
+        logger = LogContext.create().getLogger("com.example.fullstack.benchmark");
+        logger.setLevel(java.util.logging.Level.INFO);
+        if (mode.equals("sync")) {
+            logger.setHandlers(new Handler[]{fileHandler});
+        } else {
+            asyncHandler = new AsyncLogHandler(List.of(fileHandler), 8192,
+                    mode.equals("drop") ? AsyncLogHandler.Overflow.DROP : AsyncLogHandler.Overflow.BLOCK,
+                    Map.of(), new AsyncLogHandler.Listener() {
+                        @Override
+                        public void dropped() {
+                            dropped.increment();
+                        }
+
+                        @Override
+                        public void blocked() {
+                        }
+
+                        @Override
+                        public void sampledOut(final String category) {
+                        }
+                    });
+            logger.setHandlers(new Handler[]{asyncHandler});
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (asyncHandler != null) {
+            asyncHandler.close();
+            System.out.printf("%n%s: %d records dropped%n", mode, dropped.sum());
+        }
+        fileHandler.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public void log() {
+        logger.log(java.util.logging.Level.INFO, "Handled request {0} in {1} ms",
+                new Object[]{"GET /api/v1/tasks", 3});
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.fullstack.user;
+
+import io.quarkus.elytron.security.common.BcryptUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the bcrypt operations {@link PasswordHasher} runs on its worker pool, at the default cost of
+ * {@link BcryptUtil#bcryptHash(String)} and the seeded users and at the next steps startup calibration may pick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "quarkus";
+
+    @Param({"10", "11", "12"})
+    int cost;
+
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        hash = BcryptUtil.bcryptHash(PASSWORD, cost);
+    }
+
+    @Benchmark
+    public String hash() {
+        return BcryptUtil.bcryptHash(PASSWORD, cost);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return BcryptUtil.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.fullstack.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open-model load generator for a running instance of the application.
+ * <p>
+ * Every selected scenario is driven at a fixed arrival rate for the configured duration. Latencies are measured
+ * from the intended send time, so a slow server is not hidden by a stalled generator (coordinated omission),
+ * and reported per scenario as HdrHistogram percentiles. The server's heap usage and live platform threads are
+ * sampled from {@code /q/metrics} once a second, so runs of the same workload against the reactive application
+ * and its blocking counterpart in {@code virtual-threads/} can be compared.
+ * <p>
+ * Requests still running when the drain timeout after the send window expires are recorded with the latency
+ * they had reached by then and reported as timeouts, so the slowest requests still count in the tail. The
+ * access token is renewed by logging in again before it expires, runs may last longer than its lifetime.
+ * <p>
+ * Configuration through system properties:
+ * <ul>
+ *     <li>{@code loadtest.url} base URL of the application, default {@code http://localhost:8080}</li>
+ *     <li>{@code loadtest.scenarios} comma separated {@link Scenario} names, default {@code list}</li>
+ *     <li>{@code loadtest.rate} requests per second per scenario, default {@code 100}</li>
+ *     <li>{@code loadtest.duration} ISO-8601 duration per run, default {@code PT30S}</li>
+ *     <li>{@code loadtest.connections} HTTP connection pool size, default {@code 64}</li>
+ *     <li>{@code loadtest.user} / {@code loadtest.password} credentials, default {@code user} / {@code quarkus}</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration TOKEN_RENEWAL_MARGIN = Duration.ofMinutes(1);
+    private static final int PREFILLED_TASKS = 500;
+    private static final int REFRESH_SESSIONS = 64;
+    private static final String REFRESH_COOKIE = "refresh_token";
+
+    enum Scenario {
+        BLOCKING(HttpMethod.GET),
+        NON_BLOCKING(HttpMethod.GET),
+        LOGIN(HttpMethod.POST),
+        REFRESH(HttpMethod.POST),
+        LIST(HttpMethod.GET),
+        CREATE(HttpMethod.POST),
+        COMPLETE(HttpMethod.PUT),
+        DELETE(HttpMethod.DELETE);
+
+        final HttpMethod method;
+
+        Scenario(final HttpMethod method) {
+            this.method = method;
+        }
+    }
+
+    private record Config(URI url, List<Scenario> scenarios, int rate, Duration duration, int connections,
+                          String user, String password) {
+
+        static Config fromSystemProperties() {
+            return new Config(
+                    URI.create(System.getProperty("loadtest.url", "http://localhost:8080")),
+                    Arrays.stream(System.getProperty("loadtest.scenarios", "list").split(","))
+                            .map(s -> Scenario.valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_')))
+                            .toList(),
+                    Integer.getInteger("loadtest.rate", 100),
+                    Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                    Integer.getInteger("loadtest.connections", 64),
+                    System.getProperty("loadtest.user", "user"),
+                    System.getProperty("loadtest.password", "quarkus"));
+        }
+
+        boolean ssl() {
+            return "https".equalsIgnoreCase(url.getScheme());
+        }
+
+        /**
+         * Port of the URL, or the default port of its scheme when the URL has none.
+         */
+        int port() {
+            return url.getPort() >= 0 ? url.getPort() : ssl() ? 443 : 80;
+        }
+    }
+
+    /**
+     * A request sent but not yet answered, identified by its intended send time, which is unique per scenario.
+     */
+    private record Pending(long intended) {
+    }
+
+    private static final class Stats {
+        // Auto-resizing, a response slower than any bound chosen up front must still be recorded
+        final Histogram latency = new ConcurrentHistogram(3);
+        final LongAdder completed = new LongAdder();
+        final LongAdder completedInWindow = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final Set<Pending> pending = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Accounts for the requests still pending at {@code deadline}, their late responses are ignored.
+         */
+        void expire(final long deadline) {
+            for (final var request : pending) {
+                if (pending.remove(request)) {
+                    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(deadline - request.intended()));
+                    completed.increment();
+                    errors.increment();
+                    timeouts.increment();
+                }
+            }
+        }
+    }
+
+    private final Vertx vertx;
+    private final Config config;
+    private final HttpClient client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+    private final AtomicLong peakThreads = new AtomicLong();
+    private final ConcurrentLinkedQueue<Long> deletableTasks = new ConcurrentLinkedQueue<>();
+    private final List<Long> completableTasks = new ArrayList<>();
+    private final ConcurrentLinkedQueue<String> refreshTokens = new ConcurrentLinkedQueue<>();
+    private volatile String token;
+
+    private LoadTest(final Vertx vertx, final Config config) {
+        this.vertx = vertx;
+        this.config = config;
+        this.client = vertx.createHttpClient(new HttpClientOptions()
+                        .setDefaultHost(config.url().getHost())
+                        .setDefaultPort(config.port())
+                        .setSsl(config.ssl())
+                        .setKeepAlive(true),
+                new PoolOptions().setHttp1MaxSize(config.connections()));
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final var config = Config.fromSystemProperties();
+        final var vertx = Vertx.vertx();
+        try {
+            new LoadTest(vertx, config).run();
+        } finally {
+            await(vertx.close());
+        }
+    }
+
+    private void run() throws Exception {
+        token = await(login());
+        scheduleTokenRenewal();
+        if (config.scenarios().contains(Scenario.COMPLETE) || config.scenarios().contains(Scenario.DELETE)) {
+            for (int i = 0; i < PREFILLED_TASKS; i++) {
+                final var id = await(createTask());
+                completableTasks.add(id);
+                deletableTasks.add(id);
+            }
+        }
+        if (config.scenarios().contains(Scenario.REFRESH)) {
+            // Each refresh rotates its token, so every in-flight refresh needs a session of its own
+            for (int i = 0; i < REFRESH_SESSIONS; i++) {
+                refreshTokens.add(await(send(HttpMethod.POST, "/api/v1/auth/login", credentials())
+                        .compose(response -> status(Future.succeededFuture(response))
+                                .map(status -> refreshCookie(response)))));
+            }
+        }
+        System.out.printf("Driving %s at %d req/s each for %s against %s%n",
+                config.scenarios(), config.rate(), config.duration(), config.url());
+        final var stats = config.scenarios().stream().map(s -> new Stats()).toList();
+        final long start = System.nanoTime();
+        for (int i = 0; i < stats.size(); i++) {
+            drive(config.scenarios().get(i), stats.get(i), start);
+        }
+        final long sampler = vertx.setPeriodic(1000, timer -> sampleServer());
+        Thread.sleep(config.duration().toMillis());
+        final long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        stats.forEach(s -> s.expire(drainDeadline));
+        vertx.cancelTimer(sampler);
+        report(stats);
+    }
+
+    /**
+     * Issues requests on a 1 ms timer, catching up with every send that became due since the last tick.
+     */
+    private void drive(final Scenario scenario, final Stats stats, final long start) {
+        final long interval = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        final long end = start + config.duration().toNanos();
+        final long[] issued = {0};
+        vertx.setPeriodic(1, timer -> {
+            final long now = System.nanoTime();
+            final long due = Math.min(now, end) - start;
+            while (issued[0] * interval <= due) {
+                final long intended = start + issued[0]++ * interval;
+                final var request = new Pending(intended);
+                stats.pending.add(request);
+                inFlight.incrementAndGet();
+                execute(scenario).onComplete(result -> {
+                    // Not pending any more when already recorded as a timeout at the drain deadline
+                    if (stats.pending.remove(request)) {
+                        final long completed = System.nanoTime();
+                        stats.latency.recordValue(TimeUnit.NANOSECONDS.toMicros(completed - intended));
+                        stats.completed.increment();
+                        if (completed <= end) {
+                            stats.completedInWindow.increment();
+                        }
+                        if (result.failed() || result.result() >= 400) {
+                            stats.errors.increment();
+                        }
+                    }
+                    inFlight.decrementAndGet();
+                });
+            }
+            if (now >= end) {
+                vertx.cancelTimer(timer);
+            }
+        });
+    }
+
+    private Future<Integer> execute(final Scenario scenario) {
+        return switch (scenario) {
+            case BLOCKING -> status(send(scenario.method, "/blocking-endpoint", null));
+            case NON_BLOCKING -> status(send(scenario.method, "/non-blocking-endpoint", null));
+            case LOGIN -> status(send(scenario.method, "/api/v1/auth/login", credentials()));
+            case REFRESH -> {
+                final var refreshToken = refreshTokens.poll();
+                yield refreshToken == null
+                        ? Future.failedFuture("No refresh session left")
+                        : client.request(new RequestOptions().setMethod(scenario.method).setURI("/api/v1/auth/refresh")
+                                        .putHeader("Cookie", REFRESH_COOKIE + "=" + refreshToken))
+                                .compose(request -> request.send())
+                                .compose(response -> response.body().map(body -> {
+                                    refreshTokens.add(response.statusCode() == 200
+                                            ? refreshCookie(response) : refreshToken);
+                                    return response.statusCode();
+                                }));
+            }
+            case LIST -> status(send(scenario.method, "/api/v1/tasks", null));
+            case CREATE -> send(scenario.method, "/api/v1/tasks", newTask())
+                    .compose(response -> response.body().map(body -> {
+                        if (response.statusCode() < 400) {
+                            deletableTasks.add(new JsonObject(body).getLong("id"));
+                        }
+                        return response.statusCode();
+                    }));
+            case COMPLETE -> status(send(scenario.method, "/api/v1/tasks/"
+                    + completableTasks.get(ThreadLocalRandom.current().nextInt(completableTasks.size()))
+                    + "/complete", Buffer.buffer("true")));
+            case DELETE -> {
+                final var id = deletableTasks.poll();
+                yield id == null
+                        ? Future.failedFuture("No task left to delete")
+                        : status(send(scenario.method, "/api/v1/tasks/" + id, null));
+            }
+        };
+    }
+
+    private Future<String> login() {
+        return send(HttpMethod.POST, "/api/v1/auth/login", credentials())
+                .compose(response -> response.statusCode() == 200
+                        ? response.body().map(Buffer::toString)
+                        : Future.failedFuture("Login failed with status " + response.statusCode()));
+    }
+
+    /**
+     * Logs in again shortly before the access token expires, as read from its {@code exp} claim. A failed
+     * renewal is retried after a second while the current token may still be valid.
+     */
+    private void scheduleTokenRenewal() {
+        final var claims = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        final long expires = new JsonObject(claims).getLong("exp");
+        final long delay = Math.max(1000,
+                expires * 1000 - System.currentTimeMillis() - TOKEN_RENEWAL_MARGIN.toMillis());
+        vertx.setTimer(delay, timer -> renewToken());
+    }
+
+    private void renewToken() {
+        login().onSuccess(renewed -> {
+            token = renewed;
+            scheduleTokenRenewal();
+        }).onFailure(failure -> {
+            System.err.println("Renewing the access token failed: " + failure.getMessage());
+            vertx.setTimer(1000, timer -> renewToken());
+        });
+    }
+
+    private static String refreshCookie(final HttpClientResponse response) {
+        for (final var cookie : response.cookies()) {
+            if (cookie.startsWith(REFRESH_COOKIE + "=")) {
+                final int end = cookie.indexOf(';');
+                return cookie.substring(REFRESH_COOKIE.length() + 1, end < 0 ? cookie.length() : end);
+            }
+        }
+        throw new IllegalStateException("No refresh token cookie in response");
+    }
+
+    private Future<Long> createTask() {
+        return send(HttpMethod.POST, "/api/v1/tasks", newTask())
+                .compose(HttpClientResponse::body)
+                .map(body -> new JsonObject(body).getLong("id"));
+    }
+
+    private Buffer credentials() {
+        return new JsonObject().put("name", config.user()).put("password", config.password()).toBuffer();
+    }
+
+    private static Buffer newTask() {
+        return new JsonObject().put("title", "load-test-" + System.nanoTime()).toBuffer();
+    }
+
+    private Future<HttpClientResponse> send(final HttpMethod method, final String path, final Buffer body) {
+        final var options = new RequestOptions().setMethod(method).setURI(path);
+        if (token != null) {
+            options.putHeader("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            options.putHeader("Content-Type", "application/json");
+        }
+        return client.request(options)
+                .compose(request -> body == null ? request.send() : request.send(body));
+    }
+
+    private static Future<Integer> status(final Future<HttpClientResponse> response) {
+        // Drain the body so the connection can be reused
+        return response.compose(r -> r.body().map(b -> r.statusCode()));
+    }
+
+    /**
+     * Records the peaks of the heap in use and of the live platform threads from the Prometheus endpoint.
+     */
+    private void sampleServer() {
+        client.request(new RequestOptions().setMethod(HttpMethod.GET).setURI("/q/metrics"))
+                .compose(request -> request.send())
+                .compose(HttpClientResponse::body)
+                .onSuccess(body -> {
+                    long heap = 0;
+                    for (final var line : body.toString().split("\n")) {
+                        if (line.startsWith("jvm_memory_used_bytes{") && line.contains("area=\"heap\"")) {
+                            heap += (long) Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                        } else if (line.startsWith("jvm_threads_live_threads")) {
+                            peakThreads.accumulateAndGet(
+                                    (long) Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1)), Math::max);
+                        }
+                    }
+                    peakHeapBytes.accumulateAndGet(heap, Math::max);
+                });
+    }
+
+    /**
+     * Throughput counts the responses received within the send window only, the drain afterwards would
+     * otherwise stretch the denominator while adding nothing but stragglers. Timeouts are included in the
+     * requests, errors and latencies.
+     */
+    private void report(final List<Stats> stats) {
+        final double seconds = config.duration().toNanos() / 1e9;
+        System.out.printf("%-14s %10s %8s %8s %10s %10s %10s %10s %10s %10s%n",
+                "scenario", "requests", "errors", "timeouts", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms",
+                "max ms");
+        for (int i = 0; i < stats.size(); i++) {
+            final var s = stats.get(i);
+            final var h = s.latency;
+            System.out.printf("%-14s %10d %8d %8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    config.scenarios().get(i).name().toLowerCase(Locale.ROOT),
+                    s.completed.sum(), s.errors.sum(), s.timeouts.sum(), s.completedInWindow.sum() / seconds,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                    h.getMaxValue() / 1000.0);
+        }
+        System.out.printf("server peak heap used %.1f MB, peak live threads %d%n",
+                peakHeapBytes.get() / (1024.0 * 1024.0), peakThreads.get());
+    }
+
+    private static <T> T await(final Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get();
+    }
+}
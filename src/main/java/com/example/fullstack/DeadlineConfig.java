@@ -0,0 +1,25 @@
+package com.example.fullstack;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigMapping(prefix = "deadline")
+public interface DeadlineConfig {
+
+    @WithDefault("PT10S")
+    Duration defaultTimeout();
+
+    /**
+     * Upper bound for configured and requested deadlines alike.
+     */
+    @WithDefault("PT30S")
+    Duration max();
+
+    /**
+     * Deadlines per endpoint, keyed by {@code ResourceClass.method}.
+     */
+    Map<String, Duration> endpoints();
+}
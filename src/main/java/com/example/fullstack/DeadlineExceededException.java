@@ -0,0 +1,8 @@
+package com.example.fullstack;
+
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(final String message) {
+        super(message, null, false, false);
+    }
+}
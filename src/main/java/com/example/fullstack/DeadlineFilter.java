@@ -0,0 +1,44 @@
+package com.example.fullstack;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+import org.jboss.resteasy.reactive.server.SimpleResourceInfo;
+
+import java.time.Duration;
+
+/**
+ * Starts the {@link RequestDeadline} of a request from the endpoint's configured deadline, or from the
+ * {@value #HEADER} header in milliseconds when the client sent one, never beyond {@code deadline.max}.
+ */
+public class DeadlineFilter {
+
+    static final String HEADER = "X-Request-Timeout";
+
+    private final DeadlineConfig config;
+    private final RequestDeadline deadline;
+
+    public DeadlineFilter(final DeadlineConfig config, final RequestDeadline deadline) {
+        this.config = config;
+        this.deadline = deadline;
+    }
+
+    @ServerRequestFilter
+    public void start(final ContainerRequestContext context, final SimpleResourceInfo resource) {
+        var timeout = config.endpoints().getOrDefault(
+                resource.getResourceClass().getSimpleName() + "." + resource.getMethodName(),
+                config.defaultTimeout());
+        final var requested = context.getHeaderString(HEADER);
+        if (requested != null) {
+            try {
+                timeout = Duration.ofMillis(Long.parseLong(requested));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException(HEADER + " must be a number of milliseconds");
+            }
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new BadRequestException(HEADER + " must be positive");
+            }
+        }
+        deadline.start(timeout.compareTo(config.max()) > 0 ? config.max() : timeout);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.fullstack;
+
+import io.quarkus.arc.Arc;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Fails service {@code Uni}s that outlive the request's deadline with a {@link DeadlineExceededException}.
+ * <p>
+ * The timeout cancels the pipeline, which closes the reactive session and rolls back its transaction.
+ * {@code statement_timeout} is not set here: {@link Transactions#withTransaction} and {@link SingleFlight} set it
+ * to the remaining budget inside the transactions they open, so PostgreSQL cancels a statement that is still
+ * running rather than keeping the connection busy.
+ */
+@Deadline
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class DeadlineInterceptor {
+
+    private final RequestDeadline deadline;
+
+    @Inject
+    public DeadlineInterceptor(final RequestDeadline deadline) {
+        this.deadline = deadline;
+    }
+
+    @AroundInvoke
+    Object enforce(final InvocationContext context) throws Exception {
+        if (!Uni.class.equals(context.getMethod().getReturnType())
+                || !Arc.container().requestContext().isActive()
+                || !deadline.isStarted()) {
+            return context.proceed();
+        }
+        final var remaining = deadline.remaining();
+        final var method = context.getMethod().getDeclaringClass().getSimpleName() + "." + context.getMethod().getName();
+        if (remaining.isNegative() || remaining.isZero()) {
+            return Uni.createFrom().failure(new DeadlineExceededException("Deadline exceeded before " + method));
+        }
+        return ((Uni<?>) context.proceed()).ifNoItem().after(remaining)
+                .failWith(() -> new DeadlineExceededException("Deadline exceeded in " + method));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.fullstack;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.BadRequestException;
+import org.hibernate.reactive.mutiny.Mutiny;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * RFC 7386 JSON merge patch compiled into the assignments of a single HQL {@code update}, so only the members
+ * present in the patch are written. The update only matches a row when a patched member actually changes, an empty
+ * patch or one repeating the current values leaves the row and its version alone and need not be run at all.
+ * <p>
+ * Only flat members listed as patchable {@link Field fields} are accepted. A {@code version} member, or the
+ * version of an {@code If-Match} header, makes the update conditional on it.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    /**
+     * A patchable member, mapped to the entity property it assigns.
+     *
+     * @param reference entity class when the member holds the id of a to-one association
+     */
+    public record Field(String property, boolean nullable, Function<JsonNode, Object> converter, Class<?> reference) {
+
+        public static Field text(final String property, final boolean nullable) {
+            return new Field(property, nullable, node -> {
+                if (!node.isTextual()) {
+                    throw new IllegalArgumentException("string expected");
+                }
+                return node.textValue();
+            }, null);
+        }
+
+        public static Field integer(final String property, final boolean nullable) {
+            return new Field(property, nullable, node -> {
+                if (!node.canConvertToInt()) {
+                    throw new IllegalArgumentException("integer expected");
+                }
+                return node.intValue();
+            }, null);
+        }
+
+        public static Field timestamp(final String property, final boolean nullable) {
+            return new Field(property, nullable, node -> ZonedDateTime.parse(node.asText()), null);
+        }
+
+        /**
+         * A to-one association given as {@code {"id": n}} or {@code null}.
+         */
+        public static Field reference(final String property, final boolean nullable, final Class<?> entity) {
+            return new Field(property, nullable, node -> {
+                final var id = node.get("id");
+                if (id == null || !id.canConvertToLong()) {
+                    throw new IllegalArgumentException("object with numeric id expected");
+                }
+                return id.longValue();
+            }, entity);
+        }
+    }
+
+    private final Map<String, Object> values;
+    private final Map<String, Field> fields;
+    private final Integer version;
+
+    private MergePatch(final Map<String, Object> values, final Map<String, Field> fields, final Integer version) {
+        this.values = values;
+        this.fields = fields;
+        this.version = version;
+    }
+
+    /**
+     * @param expectedVersion version from an {@code If-Match} header, takes precedence over a {@code version}
+     *                        member of the patch
+     * @throws BadRequestException when the body is not a JSON object or contains unsupported members or values
+     */
+    public static MergePatch parse(final ObjectMapper objectMapper, final String body, final Map<String, Field> fields,
+                                   final Integer expectedVersion) {
+        final JsonNode patch;
+        try {
+            patch = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed merge patch");
+        }
+        if (patch == null || !patch.isObject()) {
+            throw new BadRequestException("A merge patch must be a JSON object");
+        }
+        final Map<String, Object> values = new LinkedHashMap<>();
+        Integer version = expectedVersion;
+        for (final var member : (Iterable<Map.Entry<String, JsonNode>>) patch::fields) {
+            final var name = member.getKey();
+            final var node = member.getValue();
+            if (name.equals("version")) {
+                if (version == null && node.canConvertToInt()) {
+                    version = node.intValue();
+                }
+                continue;
+            }
+            final var field = fields.get(name);
+            if (field == null) {
+                throw new BadRequestException("\"" + name + "\" cannot be patched");
+            }
+            if (node.isNull()) {
+                if (!field.nullable()) {
+                    throw new BadRequestException("\"" + name + "\" cannot be null");
+                }
+                values.put(name, null);
+                continue;
+            }
+            try {
+                values.put(name, field.converter().apply(node));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new BadRequestException("Invalid value for \"" + name + "\": " + e.getMessage());
+            }
+        }
+        return new MergePatch(values, fields, version);
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public Integer version() {
+        return version;
+    }
+
+    public boolean contains(final String member) {
+        return values.containsKey(member);
+    }
+
+    /**
+     * Converted value of a patched member, the id for a reference; {@code null} when absent or patched to null.
+     */
+    public Object value(final String member) {
+        return values.get(member);
+    }
+
+    /**
+     * HQL {@code set} clause for the patched members, also incrementing the version.
+     */
+    public String assignments() {
+        return values.keySet().stream()
+                .map(name -> fields.get(name).property() + " = :" + name)
+                .collect(Collectors.joining(", ", "", values.isEmpty() ? "version = version + 1" : ", version = version + 1"));
+    }
+
+    /**
+     * HQL condition that at least one patched member differs from its current value, for a non-empty patch.
+     */
+    public String changeCondition() {
+        return values.keySet().stream()
+                .map(name -> fields.get(name).property() + " is distinct from :" + name)
+                .collect(Collectors.joining(" or ", " and (", ")"));
+    }
+
+    /**
+     * HQL condition on the version, empty when the update is unconditional.
+     */
+    public String versionCondition() {
+        return version == null ? "" : " and version = :version";
+    }
+
+    public Mutiny.MutationQuery bind(final Mutiny.Session session, final Mutiny.MutationQuery query) {
+        values.forEach((name, value) -> {
+            final var reference = fields.get(name).reference();
+            query.setParameter(name, value != null && reference != null ? session.getReference(reference, value) : value);
+        });
+        if (version != null) {
+            query.setParameter("version", version);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.fullstack;
+
+import jakarta.enterprise.context.RequestScoped;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which the current request has to be answered.
+ */
+@RequestScoped
+public class RequestDeadline {
+
+    private long expiresAtNanos;
+    private boolean started;
+
+    void start(final Duration timeout) {
+        expiresAtNanos = System.nanoTime() + timeout.toNanos();
+        started = true;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+    }
+}
@@ -1,14 +1,18 @@
 package com.example.fullstack;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.pgclient.PgException;
 import org.hibernate.HibernateException;
 import org.hibernate.ObjectNotFoundException;
 import org.hibernate.StaleObjectStateException;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
 import org.hibernate.exception.ConstraintViolationException;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
 import java.util.Objects;
 import java.util.Optional;
@@ -17,23 +21,75 @@ import java.util.Optional;
 public class RestExceptionHandler implements ExceptionMapper<HibernateException> {
 
     private static final String PG_UNIQUE_VIOLATION_ERROR = "23505";
+    private static final String PG_QUERY_CANCELED_ERROR = "57014";
+    private static final String PG_TOO_MANY_CONNECTIONS_ERROR = "53300";
+    private static final String PG_CANNOT_CONNECT_NOW_ERROR = "57P03";
+    private static final String PG_LOCK_NOT_AVAILABLE_ERROR = "55P03";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final Counter notFound;
+    private final Counter conflict;
+    private final Counter badRequest;
+    private final Counter unavailable;
+    private final Counter timeout;
+
+    @Inject
+    public RestExceptionHandler(final MeterRegistry registry) {
+        this.notFound = counter(registry, Response.Status.NOT_FOUND);
+        this.conflict = counter(registry, Response.Status.CONFLICT);
+        this.badRequest = counter(registry, Response.Status.BAD_REQUEST);
+        this.unavailable = counter(registry, Response.Status.SERVICE_UNAVAILABLE);
+        this.timeout = counter(registry, Response.Status.GATEWAY_TIMEOUT);
+    }
+
+    private static Counter counter(final MeterRegistry registry, final Response.Status status) {
+        return Counter.builder("rest.exception.responses")
+                .tag("status", String.valueOf(status.getStatusCode()))
+                .register(registry);
+    }
 
     @Override
     public Response toResponse(HibernateException exception) {
         if (hasExceptionInChain(exception, ObjectNotFoundException.class)) {
+            notFound.increment();
             return Response.status(Response.Status.NOT_FOUND).entity(exception.getMessage()).build();
         }
         if (hasExceptionInChain(exception, StaleObjectStateException.class)
                 || hasPostgresErrorCode(exception, PG_UNIQUE_VIOLATION_ERROR)
                 || hasConstrainViolationExceptionCode(exception, PG_UNIQUE_VIOLATION_ERROR)) {
+            conflict.increment();
             return Response.status(Response.Status.CONFLICT).build();
         }
+        // statement_timeout set from the request deadline, see DeadlineInterceptor
+        if (hasPostgresErrorCode(exception, PG_QUERY_CANCELED_ERROR)) {
+            return deadlineExceeded();
+        }
+        if (hasPostgresErrorCode(exception, PG_TOO_MANY_CONNECTIONS_ERROR)
+                || hasPostgresErrorCode(exception, PG_CANNOT_CONNECT_NOW_ERROR)
+                // lock_timeout, the row stayed locked past any server side retries
+                || hasPostgresErrorCode(exception, PG_LOCK_NOT_AVAILABLE_ERROR)) {
+            unavailable.increment();
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        badRequest.increment();
         return Response
                 .status(Response.Status.BAD_REQUEST)
                 .entity("\"" + exception.getMessage() + "\"")
                 .build();
     }
 
+    @ServerExceptionMapper
+    public Response toResponse(DeadlineExceededException exception) {
+        return deadlineExceeded();
+    }
+
+    private Response deadlineExceeded() {
+        timeout.increment();
+        return Response.status(Response.Status.GATEWAY_TIMEOUT).build();
+    }
+
     private static boolean hasExceptionInChain(Throwable throwable, Class<? extends Throwable> exceptionClass) {
         return getExceptionInChain(throwable, exceptionClass).isPresent();
     }
@@ -0,0 +1,94 @@
+package com.example.fullstack;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.common.vertx.VertxContext;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: callers asking for a key whose operation is still in flight attach to
+ * the memoised {@code Uni} and share its outcome instead of running their own queries. The entry is evicted as
+ * soon as the operation terminates, so nothing outlives the flight and a later caller starts a new one.
+ * <p>
+ * A flight runs in a duplicated context and reactive session of its own, as it is not tied to the request
+ * that happened to start it, and every caller receives the outcome on its own context. Operations must not
+ * depend on request-scoped state and should produce immutable results. When the leader has a request deadline,
+ * the flight runs in a transaction whose {@code statement_timeout} is what is left of it.
+ * <p>
+ * Flights belong to the user whose data they read. A write of that user calls {@link #forget(String)} once it
+ * has committed, so a read issued after the write starts a flight of its own instead of joining one that may
+ * have read the previous state.
+ */
+@ApplicationScoped
+public class SingleFlight {
+
+    private record Key(String owner, Object operation) {
+    }
+
+    private final ConcurrentMap<Key, Uni<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter started;
+    private final Counter joined;
+    private final Transactions transactions;
+
+    @Inject
+    public SingleFlight(final MeterRegistry registry, final Transactions transactions) {
+        this.transactions = transactions;
+        this.started = counter(registry, "started");
+        this.joined = counter(registry, "joined");
+    }
+
+    private static Counter counter(final MeterRegistry registry, final String outcome) {
+        return Counter.builder("single-flight.calls")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Uni<T> join(final String owner, final Object key, final Supplier<Uni<T>> operation) {
+        return Uni.createFrom().deferred(() -> {
+            final var caller = Vertx.currentContext();
+            if (caller == null) {
+                return operation.get();
+            }
+            final var leader = new boolean[1];
+            final var flight = (Uni<T>) inFlight.computeIfAbsent(new Key(owner, key), k -> {
+                leader[0] = true;
+                return start(k, operation, caller, transactions.remaining());
+            });
+            (leader[0] ? started : joined).increment();
+            return flight.emitOn(command -> caller.runOnContext(ignored -> command.run()));
+        });
+    }
+
+    /**
+     * Detaches the in-flight reads of {@code owner}; callers already attached still receive their outcome.
+     */
+    public void forget(final String owner) {
+        inFlight.keySet().removeIf(key -> key.owner().equals(owner));
+    }
+
+    private <T> Uni<T> start(final Key key, final Supplier<Uni<T>> operation, final Context caller,
+                             final Duration budget) {
+        final var context = VertxContext.createNewDuplicatedContext(caller);
+        final var flight = new AtomicReference<Uni<T>>();
+        final var work = budget == null
+                ? Panache.withSession(operation)
+                : Panache.withTransaction(() -> Transactions.limitStatements(budget).chain(operation));
+        flight.set(work
+                .runSubscriptionOn(command -> context.runOnContext(ignored -> command.run()))
+                .onTermination().invoke(() -> inFlight.remove(key, flight.get()))
+                .memoize().indefinitely());
+        return flight.get();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.fullstack;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Opens the services' transactions, timed by the {@value #TIMER} timer tagged with the calling class and
+ * method. The timer covers session opening, the work and the commit or rollback; as a transaction is opened
+ * explicitly, work that must not hold a connection, such as hashing, can run before it and work that must see
+ * the commit, such as cache invalidation, after it.
+ * <p>
+ * Within a request with a deadline, the transaction's statements are bounded by a local {@code statement_timeout}
+ * of the remaining budget, so PostgreSQL cancels a statement still running when the request has given up.
+ */
+@ApplicationScoped
+public class Transactions {
+
+    static final String TIMER = "hibernate.reactive.transaction";
+
+    private record Key(Class<?> type, String method) {
+    }
+
+    private final MeterRegistry registry;
+    private final RequestDeadline deadline;
+    private final ConcurrentMap<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    @Inject
+    public Transactions(final MeterRegistry registry, final RequestDeadline deadline) {
+        this.registry = registry;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Runs {@code work} in {@link Panache#withTransaction(Supplier)}, timed under the given class and method.
+     */
+    public <T> Uni<T> withTransaction(final Class<?> type, final String method, final Supplier<Uni<T>> work) {
+        return measure(timer(type, method), Uni.createFrom().deferred(() -> {
+            final var budget = remaining();
+            final Supplier<Uni<T>> bounded = budget == null ? work : () -> limitStatements(budget).chain(work);
+            return Panache.withTransaction(bounded);
+        }));
+    }
+
+    /**
+     * What is left of the current request's deadline, {@code null} outside a request or without a deadline.
+     */
+    Duration remaining() {
+        return Arc.container().requestContext().isActive() && deadline.isStarted() ? deadline.remaining() : null;
+    }
+
+    /**
+     * Sets {@code statement_timeout} to {@code budget} for the rest of the current transaction.
+     */
+    static Uni<Void> limitStatements(final Duration budget) {
+        return Panache.getSession()
+                .chain(s -> s.createNativeQuery("select set_config('statement_timeout', :timeout, true)")
+                        .setParameter("timeout", Math.max(1, budget.toMillis()) + "ms")
+                        .getSingleResult())
+                .replaceWithVoid();
+    }
+
+    private Timer timer(final Class<?> type, final String method) {
+        return timers.computeIfAbsent(new Key(type, method), key -> Timer.builder(TIMER)
+                .tag("class", key.type().getSimpleName())
+                .tag("method", key.method())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private <T> Uni<T> measure(final Timer timer, final Uni<T> transaction) {
+        return Uni.createFrom().deferred(() -> {
+            final var sample = Timer.start(registry);
+            return transaction.onTermination().invoke(() -> sample.stop(timer));
+        });
+    }
+}
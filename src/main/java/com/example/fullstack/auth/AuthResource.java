@@ -1,24 +1,73 @@
 package com.example.fullstack.auth;
 
+import io.micrometer.core.annotation.Timed;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.PermitAll;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.CookieParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
 
 @Path("/api/v1/auth")
+@Timed(value = "rest.resource.requests", histogram = true)
 public class AuthResource {
+    static final String REFRESH_COOKIE = "refresh_token";
+
     private final AuthService authService;
+    private final Duration refreshTokenLifetime;
 
     @Inject
-    public AuthResource(final AuthService authService) {
+    public AuthResource(final AuthService authService,
+                        final @ConfigProperty(name = "auth.refresh-token.lifetime", defaultValue = "P14D")
+                        Duration refreshTokenLifetime) {
         this.authService = authService;
+        this.refreshTokenLifetime = refreshTokenLifetime;
     }
 
+    /**
+     * Answers the access token as the body, the refresh token travels in an HTTP-only cookie limited to this path.
+     */
     @PermitAll
     @POST
     @Path("/login")
-    public Uni<String> login(AuthRequest request) {
-        return authService.authenticate(request);
+    public Uni<Response> login(AuthRequest request) {
+        return authService.authenticate(request).map(this::toResponse);
+    }
+
+    @PermitAll
+    @POST
+    @Path("/refresh")
+    public Uni<Response> refresh(@CookieParam(REFRESH_COOKIE) String refreshToken) {
+        return authService.refresh(refreshToken).map(this::toResponse);
+    }
+
+    @PermitAll
+    @POST
+    @Path("/logout")
+    public Uni<Response> logout(@CookieParam(REFRESH_COOKIE) String refreshToken) {
+        return authService.revoke(refreshToken)
+                .map(v -> Response.noContent().cookie(refreshCookie("", 0)).build());
+    }
+
+    private Response toResponse(final AuthTokens tokens) {
+        return Response.ok(tokens.accessToken())
+                .cookie(refreshCookie(tokens.refreshToken(), (int) refreshTokenLifetime.toSeconds()))
+                .build();
+    }
+
+    private static NewCookie refreshCookie(final String value, final int maxAge) {
+        return new NewCookie.Builder(REFRESH_COOKIE)
+                .value(value)
+                .path("/api/v1/auth")
+                .maxAge(maxAge)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite(NewCookie.SameSite.STRICT)
+                .build();
     }
-}
\ No newline at end of file
+}
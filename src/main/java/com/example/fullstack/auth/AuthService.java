@@ -1,7 +1,9 @@
 package com.example.fullstack.auth;
 
+import com.example.fullstack.Transactions;
+import com.example.fullstack.user.User;
 import com.example.fullstack.user.UserService;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.security.AuthenticationFailedException;
 import io.smallrye.jwt.build.Jwt;
 import io.smallrye.mutiny.Uni;
@@ -10,6 +12,7 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.HashSet;
 
 @ApplicationScoped
@@ -17,27 +20,95 @@ public class AuthService {
 
     private final String issuer;
     private final UserService userService;
+    private final Duration accessTokenLifetime;
+    private final Duration refreshTokenLifetime;
+    private final Transactions transactions;
 
     @Inject
     public AuthService(final @ConfigProperty(name = "mp.jwt.verify.issuer") String issuer,
-                       final UserService userService) {
+                       final UserService userService,
+                       final @ConfigProperty(name = "auth.access-token.lifetime", defaultValue = "PT1H")
+                       Duration accessTokenLifetime,
+                       final @ConfigProperty(name = "auth.refresh-token.lifetime", defaultValue = "P14D")
+                       Duration refreshTokenLifetime,
+                       final Transactions transactions) {
         this.issuer = issuer;
         this.userService = userService;
+        this.accessTokenLifetime = accessTokenLifetime;
+        this.refreshTokenLifetime = refreshTokenLifetime;
+        this.transactions = transactions;
     }
 
-    @WithTransaction
-    public Uni<String> authenticate(final AuthRequest authRequest) {
-        return userService.findByName(authRequest.name())
-                .onItem()
-                .transform(user -> {
-                    if (user == null || !UserService.matches(user, authRequest.password())) {
-                        throw new AuthenticationFailedException("Invalid credentials");
-                    }
-                    return Jwt.issuer(issuer)
-                            .upn(user.name)
-                            .groups(new HashSet<>(user.roles))
-                            .expiresIn(Duration.ofHours(1L))
-                            .sign();
-                });
+    public Uni<AuthTokens> authenticate(final AuthRequest authRequest) {
+        // The session is only needed for the lookup, bcrypt runs after it on the hashing pool
+        return Panache.withSession(() -> userService.findByName(authRequest.name()))
+                .onItem().ifNull().failWith(() -> new AuthenticationFailedException("Invalid credentials"))
+                .call(user -> userService.matches(user, authRequest.password())
+                        .invoke(matches -> {
+                            if (!matches) {
+                                throw new AuthenticationFailedException("Invalid credentials");
+                            }
+                        }))
+                // Moves hashes made with an outdated cost to the current one, off the request path
+                .invoke(user -> userService.rehashInBackground(user, authRequest.password()))
+                .chain(user -> transactions.withTransaction(AuthService.class, "authenticate", () -> issueRefreshToken(user))
+                        .map(refreshToken -> new AuthTokens(issueToken(user), refreshToken)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Exchanges a refresh token for a new access token and a successor refresh token, without touching the
+     * password hash.
+     */
+    public Uni<AuthTokens> refresh(final String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return Uni.createFrom().failure(new AuthenticationFailedException("Invalid refresh token"));
+        }
+        final var now = ZonedDateTime.now();
+        return transactions.withTransaction(AuthService.class, "refresh", () -> RefreshToken.<RefreshToken>find(
+                                "from RefreshToken r join fetch r.user where r.tokenHash = ?1",
+                                Digests.sha256Hex(refreshToken))
+                        .firstResult()
+                        .chain(current -> {
+                            if (current == null || current.expires.isBefore(now) || current.user.deleted != null) {
+                                return Uni.createFrom().<AuthTokens>nullItem();
+                            }
+                            if (current.revoked != null) {
+                                // A rotated token came back, someone else holds a copy: end every session of the user
+                                return RefreshToken.update("revoked = ?1 where user = ?2 and revoked is null",
+                                                now, current.user)
+                                        .replaceWith((AuthTokens) null);
+                            }
+                            current.revoked = now;
+                            return issueRefreshToken(current.user)
+                                    .map(next -> new AuthTokens(issueToken(current.user), next));
+                        }))
+                .onItem().ifNull().failWith(() -> new AuthenticationFailedException("Invalid refresh token"));
+    }
+
+    public Uni<Void> revoke(final String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return Uni.createFrom().voidItem();
+        }
+        return transactions.withTransaction(AuthService.class, "revoke", () -> RefreshToken.update(
+                        "revoked = ?1 where tokenHash = ?2 and revoked is null",
+                        ZonedDateTime.now(), Digests.sha256Hex(refreshToken)))
+                .replaceWithVoid();
+    }
+
+    String issueToken(final User user) {
+        return Jwt.issuer(issuer)
+                .upn(user.name)
+                .groups(new HashSet<>(user.roles))
+                .expiresIn(accessTokenLifetime)
+                .sign();
+    }
+
+    private Uni<String> issueRefreshToken(final User user) {
+        final var value = RefreshToken.newValue();
+        final var refreshToken = new RefreshToken();
+        refreshToken.tokenHash = Digests.sha256Hex(value);
+        refreshToken.user = user;
+        refreshToken.expires = ZonedDateTime.now().plus(refreshTokenLifetime);
+        return refreshToken.persist().replaceWith(value);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.fullstack.auth;
+
+public record AuthTokens(String accessToken, String refreshToken) {
+}
@@ -0,0 +1,81 @@
+package com.example.fullstack.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the principal of every bearer token that passed verification until the token expires, so a
+ * client repeating the same token skips the RSA signature check and claim parsing. Entries are keyed by a
+ * SHA-256 of the raw token, only a token with identical bytes can hit, and failed verifications are never
+ * cached.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(1)
+public class CachingJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory {
+
+    public static final String CACHE_NAME = "jwt-verification";
+
+    private final JWTCallerPrincipalFactory delegate = new DefaultJWTCallerPrincipalFactory();
+    private final Cache<String, JWTCallerPrincipal> verified;
+
+    @Inject
+    public CachingJWTCallerPrincipalFactory(final MeterRegistry registry,
+                                            final @ConfigProperty(name = "jwt.verification-cache.maximum-size",
+                                                    defaultValue = "10000") long maximumSize) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, verified, CACHE_NAME);
+    }
+
+    @Override
+    public JWTCallerPrincipal parse(final String token, final JWTAuthContextInfo authContextInfo) throws ParseException {
+        final var key = Digests.sha256Hex(token);
+        final var cached = verified.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final var principal = delegate.parse(token, authContextInfo);
+        verified.put(key, principal);
+        return principal;
+    }
+
+    private static final class UntilTokenExpiry implements Expiry<String, JWTCallerPrincipal> {
+
+        @Override
+        public long expireAfterCreate(final String key, final JWTCallerPrincipal principal, final long currentTime) {
+            final long remainingSeconds = principal.getExpirationTime() - System.currentTimeMillis() / 1000;
+            return TimeUnit.SECONDS.toNanos(Math.max(0, remainingSeconds));
+        }
+
+        @Override
+        public long expireAfterUpdate(final String key, final JWTCallerPrincipal principal, final long currentTime,
+                                      final long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(final String key, final JWTCallerPrincipal principal, final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.fullstack.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+final class Digests {
+
+    private Digests() {
+    }
+
+    /**
+     * Hex SHA-256 of a high-entropy secret such as a token, not suitable for passwords.
+     */
+    static String sha256Hex(final String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
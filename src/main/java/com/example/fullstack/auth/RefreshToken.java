@@ -0,0 +1,45 @@
+package com.example.fullstack.auth;
+
+import com.example.fullstack.user.User;
+import io.quarkus.hibernate.reactive.panache.PanacheEntity;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.security.SecureRandom;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * A refresh token handed out at login, only its SHA-256 is stored. Every use revokes it and issues a
+ * successor, a revoked token presented again revokes all sessions of its user.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken extends PanacheEntity {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Column(unique = true, nullable = false, length = 64)
+    public String tokenHash;
+
+    @ManyToOne(optional = false)
+    public User user;
+
+    @Column(nullable = false)
+    public ZonedDateTime expires;
+
+    public ZonedDateTime revoked;
+
+    @CreationTimestamp
+    @Column(updatable = false, nullable = false)
+    public ZonedDateTime created;
+
+    @Version
+    public int version;
+
+    static String newValue() {
+        final var bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.fullstack.auth;
+
+import com.example.fullstack.Transactions;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * Deletes refresh tokens that can no longer be exchanged, in bounded chunks each in its own transaction.
+ * <p>
+ * Expired tokens go right away. Revoked ones are kept for {@code auth.refresh-token.revoked-retention} since a
+ * rotated token coming back is what reveals a stolen copy; once deleted, a replay is only rejected.
+ */
+@ApplicationScoped
+public class RefreshTokenCleanup {
+
+    private static final String DELETE_CHUNK = "delete from refresh_tokens where id in (select id from refresh_tokens "
+            + "where expires < now() or revoked < now() - :retention * interval '1 second' limit :chunk)";
+
+    private final Duration revokedRetention;
+    private final int chunkSize;
+    private final Transactions transactions;
+
+    @Inject
+    public RefreshTokenCleanup(final @ConfigProperty(name = "auth.refresh-token.revoked-retention", defaultValue = "P1D")
+                               Duration revokedRetention,
+                               final @ConfigProperty(name = "auth.refresh-token.cleanup-chunk-size", defaultValue = "1000")
+                               int chunkSize,
+                               final Transactions transactions) {
+        this.revokedRetention = revokedRetention;
+        this.chunkSize = chunkSize;
+        this.transactions = transactions;
+    }
+
+    @Scheduled(every = "${auth.refresh-token.cleanup-interval:1h}", delayed = "${auth.refresh-token.cleanup-interval:1h}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> cleanUp() {
+        return Multi.createBy().repeating()
+                .uni(() -> transactions.withTransaction(RefreshTokenCleanup.class, "cleanUp",
+                        () -> RefreshToken.getSession().chain(s -> s.createNativeQuery(DELETE_CHUNK)
+                                .setParameter("retention", revokedRetention.toSeconds())
+                                .setParameter("chunk", chunkSize)
+                                .executeUpdate())))
+                .whilst(deleted -> deleted == chunkSize)
+                .collect().last()
+                .replaceWithVoid();
+    }
+}
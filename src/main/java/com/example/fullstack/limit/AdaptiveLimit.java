@@ -0,0 +1,100 @@
+package com.example.fullstack.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concurrency limit that follows the gradient between the long-term and the short-term request latency.
+ * <p>
+ * While latency stays within {@code tolerance} of its baseline the limit grows by a queue allowance of
+ * {@code sqrt(limit)}; once requests start queueing behind the database pool the latency rises, the gradient
+ * drops below 1 and the limit shrinks proportionally. Samples taken while less than half of the limit is in
+ * use say nothing about the capacity and are not allowed to grow it. Failed requests (timeouts, an
+ * unavailable database) back the limit off multiplicatively.
+ */
+final class AdaptiveLimit {
+
+    private static final double LONG_WINDOW = 600;
+    private static final double SHORT_WINDOW = 10;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * Everything a sample updates, replaced as a whole by compare-and-set so concurrent releases never lock.
+     */
+    private record State(double estimate, double longRtt, double shortRtt) {
+    }
+
+    private final int min;
+    private final int max;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<State> state;
+
+    AdaptiveLimit(final ConcurrencyLimitConfig.Limit config) {
+        this.min = config.min();
+        this.max = config.max();
+        this.tolerance = config.tolerance();
+        this.smoothing = config.smoothing();
+        this.state = new AtomicReference<>(new State(Math.max(min, Math.min(max, config.initial())), 0, 0));
+    }
+
+    boolean tryAcquire() {
+        final int limit = limit();
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Returns the permit of a request that took {@code rttNanos}, {@code failed} when the server could not
+     * serve it in time.
+     */
+    void release(final long rttNanos, final boolean failed) {
+        final var concurrency = inFlight.getAndDecrement();
+        State current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, sample(current, rttNanos, concurrency, failed)));
+    }
+
+    int limit() {
+        return (int) state.get().estimate();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private State sample(final State current, final long rttNanos, final int concurrency, final boolean failed) {
+        if (failed) {
+            return new State(Math.max(min, current.estimate() * BACKOFF_RATIO), current.longRtt(), current.shortRtt());
+        }
+        double longRtt = current.longRtt();
+        double shortRtt = current.shortRtt();
+        if (longRtt == 0) {
+            longRtt = shortRtt = rttNanos;
+        } else {
+            longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+            shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        }
+        // Let the baseline recover after a sustained drop in latency instead of averaging it out slowly
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        final var estimate = current.estimate();
+        if (concurrency < estimate / 2) {
+            return new State(estimate, longRtt, shortRtt);
+        }
+        final var gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+        final var target = estimate * gradient + Math.sqrt(estimate);
+        return new State(Math.max(min, Math.min(max, estimate * (1 - smoothing) + target * smoothing)),
+                longRtt, shortRtt);
+    }
+}
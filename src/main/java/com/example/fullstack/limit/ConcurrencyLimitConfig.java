@@ -0,0 +1,44 @@
+package com.example.fullstack.limit;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+@ConfigMapping(prefix = "concurrency-limit")
+public interface ConcurrencyLimitConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Value of the {@code Retry-After} header on rejected requests, rounded up to whole seconds.
+     */
+    @WithDefault("PT1S")
+    Duration retryAfter();
+
+    Limit login();
+
+    Limit crud();
+
+    interface Limit {
+
+        int initial();
+
+        int min();
+
+        int max();
+
+        /**
+         * How far the short-term latency may rise above the long-term baseline before the limit shrinks.
+         */
+        @WithDefault("1.5")
+        double tolerance();
+
+        /**
+         * Weight of a new estimate against the current limit, between 0 and 1.
+         */
+        @WithDefault("0.2")
+        double smoothing();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.fullstack.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Sheds load in front of the resources with an {@link AdaptiveLimit} each for logins and for the CRUD
+ * endpoints. Logins are bounded by password hashing and get {@code 429}, CRUD requests are bounded by the
+ * database pool and get {@code 503}; both with {@code Retry-After}. Streams are long-lived and not limited.
+ */
+public class ConcurrencyLimitFilter {
+
+    private static final String LOGIN_PATH = "/api/v1/auth/login";
+    private static final Pattern CRUD = Pattern.compile("/api/v1/(tasks|projects|users)(?!/(export|stream)$)(/.*)?");
+
+    private final boolean enabled;
+    private final String retryAfter;
+    private final AdaptiveLimit login;
+    private final AdaptiveLimit crud;
+    private final Counter loginRejected;
+    private final Counter crudRejected;
+
+    public ConcurrencyLimitFilter(final ConcurrencyLimitConfig config, final MeterRegistry registry) {
+        this.enabled = config.enabled();
+        this.retryAfter = String.valueOf(Math.max(1, (config.retryAfter().toMillis() + 999) / 1000));
+        this.login = new AdaptiveLimit(config.login());
+        this.crud = new AdaptiveLimit(config.crud());
+        this.loginRejected = register(registry, "login", login);
+        this.crudRejected = register(registry, "crud", crud);
+    }
+
+    private static Counter register(final MeterRegistry registry, final String name, final AdaptiveLimit limit) {
+        Gauge.builder("http.concurrency.limit", limit, AdaptiveLimit::limit)
+                .tag("limiter", name)
+                .register(registry);
+        Gauge.builder("http.concurrency.in-flight", limit, AdaptiveLimit::inFlight)
+                .tag("limiter", name)
+                .register(registry);
+        return Counter.builder("http.concurrency.rejected")
+                .tag("limiter", name)
+                .register(registry);
+    }
+
+    @ServerRequestFilter(preMatching = true, priority = 0)
+    public void limit(final ContainerRequestContext context, final RoutingContext routingContext) {
+        if (!enabled) {
+            return;
+        }
+        final var path = routingContext.request().path();
+        if (LOGIN_PATH.equals(path)) {
+            acquire(context, routingContext, login, loginRejected, Response.Status.TOO_MANY_REQUESTS);
+        } else if (CRUD.matcher(path).matches()) {
+            acquire(context, routingContext, crud, crudRejected, Response.Status.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private void acquire(final ContainerRequestContext context, final RoutingContext routingContext,
+                         final AdaptiveLimit limit, final Counter rejected, final Response.Status status) {
+        if (!limit.tryAcquire()) {
+            rejected.increment();
+            context.abortWith(Response.status(status).header(HttpHeaders.RETRY_AFTER, retryAfter).build());
+            return;
+        }
+        final var start = System.nanoTime();
+        // End handlers also run when the client goes away, so the permit cannot leak
+        routingContext.addEndHandler(ended -> {
+            final var statusCode = routingContext.response().getStatusCode();
+            limit.release(System.nanoTime() - start, ended.failed()
+                    || statusCode == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+                    || statusCode == Response.Status.GATEWAY_TIMEOUT.getStatusCode());
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.fullstack.logging;
+
+import org.jboss.logmanager.ExtHandler;
+import org.jboss.logmanager.ExtLogRecord;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+
+/**
+ * Hands log records to a dedicated writer thread through a {@link LogRingBuffer}, so the logging thread
+ * only pays for copying the record instead of formatting and appending to a file under the handler's lock.
+ * <p>
+ * A full buffer either drops the record or parks the logging thread until the writer caught up, depending on
+ * the {@link Overflow} policy; records from the writer thread itself and those racing with {@link #close()} are
+ * always dropped. Categories with a sampling rate below one only pass that share of their records.
+ */
+public class AsyncLogHandler extends ExtHandler {
+
+    public enum Overflow { DROP, BLOCK }
+
+    public interface Listener {
+        void dropped();
+
+        void blocked();
+
+        void sampledOut(String category);
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final List<Handler> delegates;
+    private final LogRingBuffer<ExtLogRecord> buffer;
+    private final Overflow overflow;
+    private final Map<String, Double> sampling;
+    private final Listener listener;
+    private final Thread writer;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    public AsyncLogHandler(final List<Handler> delegates, final int capacity, final Overflow overflow,
+                           final Map<String, Double> sampling, final Listener listener) {
+        this.delegates = List.copyOf(delegates);
+        this.buffer = new LogRingBuffer<>(capacity);
+        this.overflow = overflow;
+        this.sampling = Map.copyOf(sampling);
+        this.listener = listener;
+        this.writer = new Thread(this::drain, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    protected void doPublish(final ExtLogRecord record) {
+        if (closed) {
+            return;
+        }
+        final var category = sampledCategory(record.getLoggerName());
+        if (category != null && ThreadLocalRandom.current().nextDouble() >= sampling.get(category)) {
+            listener.sampledOut(category);
+            return;
+        }
+        // Parameters, MDC and the caller are resolved now, the record is formatted later on another thread
+        record.copyAll();
+        while (!buffer.offer(record)) {
+            // The writer itself, logging from a delegate, would wait for its own progress; after close nobody drains
+            if (overflow == Overflow.DROP || closed || Thread.currentThread() == writer) {
+                listener.dropped();
+                return;
+            }
+            listener.blocked();
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * The configured category that is {@code loggerName} or its closest parent, {@code null} if none is.
+     */
+    private String sampledCategory(final String loggerName) {
+        if (sampling.isEmpty() || loggerName == null) {
+            return null;
+        }
+        String category = loggerName;
+        while (true) {
+            if (sampling.containsKey(category)) {
+                return category;
+            }
+            final int dot = category.lastIndexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            category = category.substring(0, dot);
+        }
+    }
+
+    public int queued() {
+        return buffer.size();
+    }
+
+    private void drain() {
+        while (true) {
+            final var record = buffer.poll();
+            if (record != null) {
+                for (final var delegate : delegates) {
+                    try {
+                        delegate.publish(record);
+                    } catch (RuntimeException e) {
+                        reportError("Delegate handler failed", e, ErrorManager.WRITE_FAILURE);
+                    }
+                }
+                continue;
+            }
+            if (closed) {
+                return;
+            }
+            idle = true;
+            if (buffer.size() == 0) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    @Override
+    public void flush() {
+        delegates.forEach(Handler::flush);
+    }
+
+    /**
+     * Stops accepting records and returns once everything already queued has been written.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
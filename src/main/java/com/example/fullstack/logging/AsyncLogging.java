@@ -0,0 +1,103 @@
+package com.example.fullstack.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.bootstrap.logging.QuarkusDelayedHandler;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logmanager.ExtHandler;
+import org.jboss.logmanager.LogContext;
+import org.jboss.logmanager.handlers.DelayedHandler;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Handler;
+
+/**
+ * Moves the handlers Quarkus configured for the root logger behind an {@link AsyncLogHandler} once the
+ * application started, and puts them back on shutdown after the buffer was drained.
+ */
+@ApplicationScoped
+public class AsyncLogging {
+
+    private final AsyncLoggingConfig config;
+    private final MeterRegistry registry;
+    private ExtHandler parent;
+    private Handler[] original;
+    private AsyncLogHandler handler;
+
+    @Inject
+    public AsyncLogging(final AsyncLoggingConfig config, final MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+    }
+
+    void install(@Observes final StartupEvent event) {
+        if (!config.enabled()) {
+            return;
+        }
+        final var root = LogContext.getLogContext().getLogger("");
+        // Quarkus nests the console and file handlers in a delayed handler on the root logger
+        final var rootHandlers = root.getHandlers();
+        parent = rootHandlers.length == 1 && isDelayedHandler(rootHandlers[0]) ? (ExtHandler) rootHandlers[0] : null;
+        original = parent != null ? parent.getHandlers() : rootHandlers;
+        handler = new AsyncLogHandler(Arrays.asList(original), capacity(), config.overflow(), config.sampling(),
+                new Metrics());
+        Gauge.builder("logging.async.queued", handler, AsyncLogHandler::queued).register(registry);
+        if (parent != null) {
+            parent.setHandlers(new Handler[]{handler});
+        } else {
+            root.setHandlers(new Handler[]{handler});
+        }
+        Log.infof("Asynchronous logging enabled, capacity %d, overflow %s, sampling %s",
+                capacity(), config.overflow(), config.sampling());
+    }
+
+    void uninstall(@Observes final ShutdownEvent event) {
+        if (handler == null) {
+            return;
+        }
+        if (parent != null) {
+            parent.setHandlers(original);
+        } else {
+            LogContext.getLogContext().getLogger("").setHandlers(original);
+        }
+        handler.close();
+    }
+
+    private static boolean isDelayedHandler(final Handler handler) {
+        return handler instanceof QuarkusDelayedHandler || handler instanceof DelayedHandler;
+    }
+
+    private int capacity() {
+        return Integer.highestOneBit(Math.max(2, config.capacity() - 1)) << 1;
+    }
+
+    private final class Metrics implements AsyncLogHandler.Listener {
+        private final Counter dropped = registry.counter("logging.async.dropped");
+        private final Counter blocked = registry.counter("logging.async.blocked");
+        private final Map<String, Counter> sampledOut = new ConcurrentHashMap<>();
+
+        @Override
+        public void dropped() {
+            dropped.increment();
+        }
+
+        @Override
+        public void blocked() {
+            blocked.increment();
+        }
+
+        @Override
+        public void sampledOut(final String category) {
+            sampledOut.computeIfAbsent(category,
+                    c -> registry.counter("logging.async.sampled-out", "category", c)).increment();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.fullstack.logging;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.util.Map;
+
+@ConfigMapping(prefix = "logging.async")
+public interface AsyncLoggingConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Records the ring buffer holds, rounded up to a power of two.
+     */
+    @WithDefault("8192")
+    int capacity();
+
+    @WithDefault("drop")
+    AsyncLogHandler.Overflow overflow();
+
+    /**
+     * Share of records between 0 and 1 that is kept per logger category, a category also covers its children.
+     */
+    Map<String, Double> sampling();
+}
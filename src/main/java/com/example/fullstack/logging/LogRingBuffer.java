@@ -0,0 +1,74 @@
+package com.example.fullstack.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer, after Dmitry Vyukov's bounded
+ * queue. Each slot carries a sequence number telling producers and the consumer whose turn it is, so neither
+ * side ever takes a lock and a full buffer is detected without blocking.
+ */
+final class LogRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    LogRingBuffer(final int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, was " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds {@code element} unless the buffer is full, safe to call from any thread.
+     */
+    boolean offer(final E element) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest element or returns {@code null} when empty, must only be called by the consumer thread.
+     */
+    E poll() {
+        final long position = head.get();
+        final int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        final E element = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
@@ -1,19 +1,18 @@
 package com.example.fullstack.project;
 
 import com.example.fullstack.user.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.quarkus.hibernate.reactive.panache.PanacheEntity;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.ZonedDateTime;
 
 @Entity
-@Table(
-        name = "projects",
-        uniqueConstraints = {
-                @UniqueConstraint(columnNames = {"name", "user_id"})
-        }
-)
+// (user_id, name) is unique among projects not deleted, a partial index created in import.sql
+@Table(name = "projects")
+@SQLRestriction("deleted is null")
 public class Project extends PanacheEntity {
     @Column(nullable = false)
     public String name;
@@ -27,4 +26,10 @@ public class Project extends PanacheEntity {
 
     @Version
     public int version;
+
+    /**
+     * Set when the project is deleted, the row itself is removed once its purge has finished.
+     */
+    @JsonIgnore
+    public ZonedDateTime deleted;
 }
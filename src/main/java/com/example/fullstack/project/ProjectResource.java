@@ -1,5 +1,10 @@
 package com.example.fullstack.project;
 
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.MergePatch;
+import com.example.fullstack.purge.PurgeJobs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
@@ -9,26 +14,68 @@ import org.jboss.resteasy.reactive.ResponseStatus;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
 import java.util.List;
 
 @Path("/api/v1/projects")
 @RolesAllowed("user")
+@Timed(value = "rest.resource.requests", histogram = true)
 public class ProjectResource {
 
     private final ProjectService projectService;
+    private final ObjectMapper objectMapper;
 
     @Inject
-    public ProjectResource(ProjectService projectService) {
+    public ProjectResource(ProjectService projectService, ObjectMapper objectMapper) {
         this.projectService = projectService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Lists the projects of the current user, answered with 304 on a matching {@code If-None-Match}
+     * without loading them.
+     */
+    @GET
+    public Uni<Response> get(@Context Request request) {
+        return projectService.listTag()
+                .chain(tag -> {
+                    final var notModified = request.evaluatePreconditions(tag);
+                    if (notModified != null) {
+                        return Uni.createFrom().item(notModified.build());
+                    }
+                    return projectService.listForUser()
+                            .map(projects -> Response.ok(projects).tag(tag).build());
+                });
     }
 
+    /**
+     * Task counts and latest activity per project of the current user, see {@link ProjectService#stats()}.
+     */
     @GET
-    public Uni<List<Project>> get() {
-        return projectService.listForUser();
+    @Path("/stats")
+    public Uni<List<ProjectStats>> stats() {
+        return projectService.stats();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Uni<Response> get(@PathParam("id") long id, @Context Request request) {
+        return projectService.findById(id)
+                .map(project -> {
+                    final var tag = EntityTags.of(project.id, project.version);
+                    final var notModified = request.evaluatePreconditions(tag);
+                    return (notModified != null ? notModified : Response.ok(project).tag(tag)).build();
+                });
     }
 
     @POST
@@ -41,15 +88,35 @@ public class ProjectResource {
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
     @Path("/{id}")
-    public Uni<Project> update(@PathParam("id") long id, Project project) {
+    public Uni<Response> update(@PathParam("id") long id,
+                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                Project project) {
         project.id = id;
-        return projectService.update(project);
+        return projectService.update(project, EntityTags.expectedVersion(ifMatch, id))
+                .map(updated -> Response.ok(updated).tag(EntityTags.of(updated.id, updated.version)).build());
+    }
+
+    /**
+     * Partial update with an RFC 7386 merge patch, only the given members are written.
+     */
+    @PATCH
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Path("/{id}")
+    public Uni<Response> patch(@PathParam("id") long id,
+                               @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                               String body) {
+        final var patch = MergePatch.parse(objectMapper, body, ProjectService.PATCHABLE,
+                EntityTags.expectedVersion(ifMatch, id));
+        return projectService.patch(id, patch)
+                .map(project -> Response.ok(project).tag(EntityTags.of(project.id, project.version)).build());
     }
 
     @DELETE
     @Path("/{id}")
-    public Uni<Void> delete(@PathParam("id") long id) {
-        return projectService.delete(id);
+    public Uni<Response> delete(@PathParam("id") long id,
+                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        return projectService.delete(id, EntityTags.expectedVersion(ifMatch, id))
+                .map(PurgeJobs::toResponse);
     }
 
 }
\ No newline at end of file
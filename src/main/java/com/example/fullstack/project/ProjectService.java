@@ -1,62 +1,278 @@
 package com.example.fullstack.project;
 
+import com.example.fullstack.Deadline;
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.MergePatch;
+import com.example.fullstack.SingleFlight;
+import com.example.fullstack.Transactions;
+import com.example.fullstack.purge.PurgeJob;
+import com.example.fullstack.purge.PurgeService;
+import com.example.fullstack.task.TaskEvents;
 import com.example.fullstack.user.UserService;
-import com.example.fullstack.task.Task;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.logging.Log;
 import io.quarkus.security.UnauthorizedException;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.unchecked.Unchecked;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
 import org.hibernate.ObjectNotFoundException;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
+@Deadline
 public class ProjectService {
+    public static final String STATS_CACHE = "project-stats";
+    static final Map<String, MergePatch.Field> PATCHABLE = Map.of(
+            "name", MergePatch.Field.text("name", false));
+
     private final UserService userService;
+    private final PurgeService purgeService;
+    private final TaskEvents taskEvents;
+    private final Cache statsCache;
+    private final SingleFlight singleFlight;
+    private final Transactions transactions;
+    private Cancellable statsInvalidation;
 
     @Inject
-    public ProjectService(final UserService userService) {
+    public ProjectService(final UserService userService,
+                          final PurgeService purgeService,
+                          final TaskEvents taskEvents,
+                          final @CacheName(STATS_CACHE) Cache statsCache,
+                          final SingleFlight singleFlight,
+                          final Transactions transactions) {
         this.userService = userService;
+        this.purgeService = purgeService;
+        this.taskEvents = taskEvents;
+        this.statsCache = statsCache;
+        this.singleFlight = singleFlight;
+        this.transactions = transactions;
+    }
+
+    /**
+     * Drops a user's memoised statistics on every change of one of their tasks, on whichever node it happened.
+     * A failed invalidation only costs the cache lifetime, a failed event stream is subscribed to again.
+     */
+    @PostConstruct
+    void invalidateStatsOnTaskChanges() {
+        statsInvalidation = taskEvents.all()
+                .onItem().transformToUniAndMerge(event -> statsCache.invalidate(event.user())
+                        .onFailure().invoke(e -> Log.warnf(e, "Invalidating project statistics of %s failed",
+                                event.user()))
+                        .onFailure().recoverWithNull())
+                .onFailure().invoke(e -> Log.warnf(e, "Task events for project statistics failed, resubscribing"))
+                .onFailure().retry().withBackOff(Duration.ofSeconds(1), Duration.ofSeconds(30)).indefinitely()
+                .subscribe().with(ignored -> {
+                });
     }
 
+    @PreDestroy
+    void stopStatsInvalidation() {
+        statsInvalidation.cancel();
+    }
+
+    /**
+     * Loads a project of the current user in a single statement, the owner is matched in the query
+     * rather than compared after loading. The owner's eager roles are fetched by the same statement, and read
+     * as a list because a row limit cannot be applied in SQL to a collection fetch.
+     */
     public Uni<Project> findById(final long id) {
-        return userService.getCurrentUser()
-                .chain(user -> Project.<Project>findById(id)
-                .onItem().ifNull().failWith( () -> new ObjectNotFoundException(id, "Project"))
-                .onItem().invoke(Unchecked.consumer(project -> {
-                    if (!user.equals(project.user)) {
-                        throw new UnauthorizedException("You are not allowed to access this project");
+        return Project.<Project>find("from Project p join fetch p.user u left join fetch u.roles "
+                                + "where p.id = ?1 and u.name = ?2",
+                        id, userService.getCurrentUserName())
+                .list()
+                .map(projects -> projects.isEmpty() ? null : projects.get(0))
+                .onItem().ifNull().switchTo(() -> notFoundOrNotOwned(id));
+    }
+
+    /**
+     * Only reached when the owner-scoped lookup found nothing, tells a missing project apart from someone else's.
+     */
+    private static Uni<Project> notFoundOrNotOwned(final long id) {
+        return Project.count("id", id)
+                .map(count -> {
+                    if (count == 0) {
+                        throw new ObjectNotFoundException(id, "Project");
                     }
-                })));
+                    throw new UnauthorizedException("You are not allowed to access this project");
+                });
+    }
+
+    /**
+     * Lists the current user's projects, concurrent requests of the same user share one query.
+     */
+    public Uni<List<ProjectView>> listForUser() {
+        final var userName = userService.getCurrentUserName();
+        return singleFlight.join(userName, "projects", () -> Project.getSession()
+                .chain(s -> s.createSelectionQuery("select new com.example.fullstack.project.ProjectView("
+                                + "p.id, p.name, p.created, p.version) "
+                                + "from Project p join p.user u where u.name = :user order by p.id", ProjectView.class)
+                        .setParameter("user", userName)
+                        .getResultList()));
     }
 
-    public Uni<List<Project>> listForUser() {
-        return userService.getCurrentUser()
-                .chain(user -> Project.find("user", user).list());
+    /**
+     * Open, completed and overdue task counts of every project of the current user, computed by a single
+     * grouped query and memoised per user for the short lifetime of the {@value STATS_CACHE} cache. The query
+     * runs in a read transaction that bounds it by the request's deadline.
+     */
+    public Uni<List<ProjectStats>> stats() {
+        return statsCache.getAsync(userService.getCurrentUserName(), userName -> transactions.withTransaction(
+                ProjectService.class, "stats", () -> Project.getSession()
+                .chain(s -> s.createSelectionQuery("select new com.example.fullstack.project.ProjectStats("
+                                + "p.id, p.name, count(t.id) - count(t.complete), count(t.complete), "
+                                + "sum(case when t.complete is null and t.due < :now then 1 else 0 end), "
+                                + "coalesce(max(greatest(t.created, t.complete)), p.created)) "
+                                + "from Project p join p.user u left join Task t on t.project = p "
+                                + "where u.name = :user group by p.id, p.name, p.created order by p.id",
+                                ProjectStats.class)
+                        .setParameter("user", userName)
+                        .setParameter("now", ZonedDateTime.now())
+                        .getResultList())));
     }
 
-    @WithTransaction
+    /**
+     * Detaches the user's in-flight reads and drops their statistics.
+     */
+    private Uni<Void> afterCommit() {
+        final var userName = userService.getCurrentUserName();
+        singleFlight.forget(userName);
+        return statsCache.invalidate(userName);
+    }
+
+    /**
+     * The mutators below commit before they drop what the user's reads memoised, so a concurrent read cannot
+     * cache the state the transaction is about to replace, nor can a read issued after the write join one
+     * started before it.
+     */
     public Uni<Project> create(Project project) {
-        return userService.getCurrentUser()
-                .chain(user -> {
-                    project.user = user;
-                        return project.persistAndFlush();
-                });
+        return transactions.withTransaction(ProjectService.class, "create", () -> userService.getCurrentUser()
+                        .chain(user -> {
+                            project.user = user;
+                            return project.<Project>persistAndFlush();
+                        }))
+                .call(p -> afterCommit());
     }
 
-    @WithTransaction
     public Uni<Project> update(Project project) {
-        return findById(project.id)
-                .chain(p -> Project.getSession())
-                .chain(s -> s.merge(project));
+        return transactions.withTransaction(ProjectService.class, "update", () -> findById(project.id)
+                        .chain(p -> Project.getSession())
+                        .chain(s -> s.merge(project)))
+                .call(p -> afterCommit());
+    }
+
+    /**
+     * Replaces the project only if it is still at {@code expectedVersion}. The version is compared by the
+     * owner-scoped {@code update} itself, a stale precondition is rejected with 412 without loading the project first.
+     */
+    public Uni<Project> update(final Project project, final Integer expectedVersion) {
+        if (expectedVersion == null) {
+            return update(project);
+        }
+        final var userName = userService.getCurrentUserName();
+        return transactions.withTransaction(ProjectService.class, "update", () -> Project.getSession()
+                .chain(s -> s.createMutationQuery("update Project set name = :name, version = version + 1 "
+                                + "where id = :id and version = :version "
+                                + "and user.id in (select u.id from User u where u.name = :user)")
+                        .setParameter("name", project.name)
+                        .setParameter("id", project.id)
+                        .setParameter("version", expectedVersion)
+                        .setParameter("user", userName)
+                        .executeUpdate())
+                .chain(updated -> updated > 0 ? findById(project.id) : staleOrMissing(project.id)))
+                .call(p -> afterCommit());
+    }
+
+    /**
+     * Applies a merge patch with one {@code update} of the patched columns, owner-scoped and, when the patch
+     * carries a version, conditional on it. A patch that changes nothing is not written and keeps the version.
+     */
+    public Uni<Project> patch(final long id, final MergePatch patch) {
+        final var userName = userService.getCurrentUserName();
+        return transactions.withTransaction(ProjectService.class, "patch", () -> patchRow(id, patch, userName)
+                        .chain(updated -> updated > 0 ? findById(id) : unchanged(id, patch.version())))
+                .call(p -> afterCommit());
+    }
+
+    /**
+     * Runs the patch's {@code update}, the number of rows it changed.
+     */
+    private static Uni<Integer> patchRow(final long id, final MergePatch patch, final String userName) {
+        if (patch.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        return Project.getSession()
+                .chain(s -> patch.bind(s, s.createMutationQuery("update Project set " + patch.assignments()
+                                + " where id = :id and user.id in (select u.id from User u where u.name = :user)"
+                                + patch.versionCondition() + patch.changeCondition()))
+                        .setParameter("id", id)
+                        .setParameter("user", userName)
+                        .executeUpdate());
+    }
+
+    public Uni<PurgeJob> delete(long id) {
+        return delete(id, null);
+    }
+
+    /**
+     * Deletes the project unless {@code expectedVersion} is given and no longer current. The project is
+     * hidden right away, detaching its tasks is left to the {@link PurgeService}.
+     */
+    public Uni<PurgeJob> delete(final long id, final Integer expectedVersion) {
+        return transactions.withTransaction(ProjectService.class, "delete", () -> findById(id)
+                .invoke(p -> {
+                    if (expectedVersion != null && p.version != expectedVersion) {
+                        throw EntityTags.preconditionFailed();
+                    }
+                })
+                .invoke(p -> p.deleted = ZonedDateTime.now())
+                .call(p -> p.persistAndFlush())
+                .chain(p -> purgeService.start(PurgeJob.Type.PROJECT, p.id)))
+                .call(job -> afterCommit());
+    }
+
+    /**
+     * Reached when a patch changed nothing: reports 404/401 first, a project that is found fails the
+     * precondition when it has another version than the expected one and is returned as it is otherwise.
+     */
+    private Uni<Project> unchanged(final long id, final Integer expectedVersion) {
+        return findById(id).map(project -> {
+            if (expectedVersion != null && project.version != expectedVersion) {
+                throw EntityTags.preconditionFailed();
+            }
+            return project;
+        });
+    }
+
+    /**
+     * Reached when a versioned statement changed nothing: reports 404/401 first, a project that is found had
+     * another version and fails the precondition.
+     */
+    private Uni<Project> staleOrMissing(final long id) {
+        return findById(id).<Project>map(project -> {
+            throw EntityTags.preconditionFailed();
+        });
     }
 
-    @WithTransaction
-    public Uni<Void> delete(long id) {
-        return findById(id)
-                .chain(p -> Task.update("project = null where project = ?1", p)
-                        .chain(i -> p.delete()));
+    /**
+     * Entity tag of the current user's project list, changes whenever a project of the user is
+     * created, updated or deleted.
+     */
+    public Uni<EntityTag> listTag() {
+        final var userName = userService.getCurrentUserName();
+        return singleFlight.join(userName, "projects-tag", () -> Project.getSession()
+                .chain(s -> s.createSelectionQuery("select count(p.id), coalesce(sum(p.version), 0), "
+                                + "coalesce(max(p.id), 0) from Project p where p.user.name = :user", Object[].class)
+                        .setParameter("user", userName)
+                        .getSingleResult())
+                .map(aggregate -> EntityTags.ofAggregate("projects", aggregate)));
     }
 }
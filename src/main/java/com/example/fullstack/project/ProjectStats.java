@@ -0,0 +1,11 @@
+package com.example.fullstack.project;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Task counts of one project, {@code lastActivity} is the latest task creation or completion and the project's
+ * own creation while it has no tasks.
+ */
+public record ProjectStats(Long id, String name, Long open, Long completed, Long overdue,
+                           ZonedDateTime lastActivity) {
+}
@@ -0,0 +1,45 @@
+package com.example.fullstack.purge;
+
+import io.quarkus.hibernate.reactive.panache.PanacheEntity;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Progress of the background removal of a deleted user or project and everything that depends on it.
+ */
+@Entity
+@Table(name = "purge_jobs")
+public class PurgeJob extends PanacheEntity {
+
+    public enum Type { USER, PROJECT }
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    public Type type;
+
+    @Column(nullable = false)
+    public long targetId;
+
+    @Column(nullable = false)
+    public String requestedBy;
+
+    /**
+     * Number of dependent rows removed or detached so far.
+     */
+    public long purged;
+
+    @CreationTimestamp
+    @Column(updatable = false, nullable = false)
+    public ZonedDateTime created;
+
+    public ZonedDateTime completed;
+
+    @Version
+    public int version;
+
+    public boolean isDone() {
+        return completed != null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.fullstack.purge;
+
+import jakarta.ws.rs.core.Response;
+
+import java.net.URI;
+
+public final class PurgeJobs {
+
+    private PurgeJobs() {
+    }
+
+    /**
+     * 204 when the purge already finished inline, otherwise 202 pointing at the job so the caller can follow
+     * its progress.
+     */
+    public static Response toResponse(final PurgeJob job) {
+        if (job.isDone()) {
+            return Response.noContent().build();
+        }
+        return Response.accepted(job)
+                .location(URI.create("/api/v1/purges/" + job.id))
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.fullstack.purge;
+
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+
+@Path("/api/v1/purges")
+@RolesAllowed({"user", "admin"})
+@Timed(value = "rest.resource.requests", histogram = true)
+public class PurgeResource {
+
+    private final PurgeService purgeService;
+
+    public PurgeResource(final PurgeService purgeService) {
+        this.purgeService = purgeService;
+    }
+
+    @GET
+    @Path("/{id}")
+    public Uni<PurgeJob> get(@PathParam("id") long id) {
+        return purgeService.findById(id);
+    }
+}
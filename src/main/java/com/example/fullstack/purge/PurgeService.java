@@ -0,0 +1,155 @@
+package com.example.fullstack.purge;
+
+import com.example.fullstack.Transactions;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.hibernate.reactive.panache.common.WithSession;
+import io.quarkus.logging.Log;
+import io.quarkus.panache.common.Sort;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.hibernate.ObjectNotFoundException;
+import org.hibernate.reactive.mutiny.Mutiny;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Removes the rows that depend on a deleted user or project in bounded chunks, each in its own short
+ * transaction, so that deleting a large account never holds locks on thousands of rows at once.
+ * <p>
+ * The first chunk runs inline with the deletion itself; small cascades therefore finish before the
+ * request returns. Whatever is left is picked up by {@link #resume()}, which also continues jobs
+ * interrupted by a restart since their state lives in the {@code purge_jobs} table.
+ * <p>
+ * Each run keeps stepping through its jobs, one transaction per chunk, until they finish or
+ * {@code purge.run-budget} is spent. With the defaults (500 rows per chunk, a 4s budget every 5s) and chunks
+ * taking around 10ms, a node purges in the order of 40,000 rows per second instead of one chunk, 100 rows per
+ * second, per job.
+ */
+@ApplicationScoped
+public class PurgeService {
+
+    private static final List<String> USER_CHUNKS = List.of(
+            "delete from refresh_tokens where id in (select id from refresh_tokens where user_id = :target limit :chunk)",
+            "delete from task where id in (select id from task where user_id = :target limit :chunk)",
+            "update task set project_id = null where id in (select t.id from task t "
+                    + "join projects p on p.id = t.project_id where p.user_id = :target limit :chunk)",
+            "delete from projects where id in (select id from projects where user_id = :target limit :chunk)");
+    private static final List<String> USER_FINAL = List.of(
+            "delete from user_roles where id = :target",
+            "delete from users where id = :target");
+    private static final List<String> PROJECT_CHUNKS = List.of(
+            "update task set project_id = null where id in (select id from task where project_id = :target limit :chunk)");
+    private static final List<String> PROJECT_FINAL = List.of(
+            "delete from projects where id = :target");
+
+    private final JsonWebToken jsonWebToken;
+    private final int chunkSize;
+    private final int jobsPerRun;
+    private final Duration runBudget;
+    private final Transactions transactions;
+
+    @Inject
+    public PurgeService(final JsonWebToken jsonWebToken,
+                        final @ConfigProperty(name = "purge.chunk-size", defaultValue = "500") int chunkSize,
+                        final @ConfigProperty(name = "purge.jobs-per-run", defaultValue = "10") int jobsPerRun,
+                        final @ConfigProperty(name = "purge.run-budget", defaultValue = "4s") Duration runBudget,
+                        final Transactions transactions) {
+        this.jsonWebToken = jsonWebToken;
+        this.chunkSize = chunkSize;
+        this.jobsPerRun = jobsPerRun;
+        this.runBudget = runBudget;
+        this.transactions = transactions;
+    }
+
+    @WithSession
+    public Uni<PurgeJob> findById(final long id) {
+        return PurgeJob.<PurgeJob>find("id = ?1 and requestedBy = ?2", id, jsonWebToken.getName())
+                .firstResult()
+                .onItem().ifNull().failWith(() -> new ObjectNotFoundException(id, "PurgeJob"));
+    }
+
+    /**
+     * Records a purge of the already soft-deleted target and runs its first chunk, must be called within
+     * the transaction that marked the target as deleted.
+     */
+    public Uni<PurgeJob> start(final PurgeJob.Type type, final long targetId) {
+        final var job = new PurgeJob();
+        job.type = type;
+        job.targetId = targetId;
+        job.requestedBy = jsonWebToken.getName();
+        return job.<PurgeJob>persist().chain(this::step);
+    }
+
+    @Scheduled(every = "${purge.interval:5s}", delayed = "${purge.interval:5s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    Uni<Void> resume() {
+        final long deadline = System.nanoTime() + runBudget.toNanos();
+        return Panache.withSession(() -> PurgeJob.<PurgeJob>find("completed is null", Sort.by("id"))
+                        .page(0, jobsPerRun).list())
+                .onItem().transformToMulti(jobs -> Multi.createFrom().iterable(jobs))
+                .onItem().transformToUniAndConcatenate(job -> drain(job.id, deadline)
+                        .onFailure().invoke(e -> Log.warnf(e, "Purge of %s %d failed, will retry", job.type, job.targetId))
+                        .onFailure().recoverWithNull())
+                .collect().last()
+                .replaceWithVoid();
+    }
+
+    /**
+     * Steps through the job, each chunk in its own transaction, until it completes or the deadline passes.
+     */
+    private Uni<PurgeJob> drain(final long jobId, final long deadline) {
+        return Multi.createBy().repeating()
+                .uni(() -> transactions.withTransaction(PurgeService.class, "resume",
+                        () -> PurgeJob.<PurgeJob>findById(jobId).chain(this::step)))
+                .whilst(job -> job.completed == null && System.nanoTime() - deadline < 0)
+                .collect().last();
+    }
+
+    private Uni<PurgeJob> step(final PurgeJob job) {
+        final var chunks = job.type == PurgeJob.Type.USER ? USER_CHUNKS : PROJECT_CHUNKS;
+        final var finals = job.type == PurgeJob.Type.USER ? USER_FINAL : PROJECT_FINAL;
+        return PurgeJob.getSession()
+                .chain(s -> purgeChunk(s, job.targetId, chunks, 0)
+                        .chain(count -> {
+                            job.purged += count;
+                            if (count > 0) {
+                                return Uni.createFrom().item(job);
+                            }
+                            return finish(s, job.targetId, finals, 0)
+                                    .invoke(() -> job.completed = ZonedDateTime.now())
+                                    .replaceWith(job);
+                        }));
+    }
+
+    private Uni<Integer> purgeChunk(final Mutiny.Session session, final long targetId, final List<String> statements,
+                                    final int index) {
+        if (index == statements.size()) {
+            return Uni.createFrom().item(0);
+        }
+        return session.createNativeQuery(statements.get(index))
+                .setParameter("target", targetId)
+                .setParameter("chunk", chunkSize)
+                .executeUpdate()
+                .chain(count -> count > 0
+                        ? Uni.createFrom().item(count)
+                        : purgeChunk(session, targetId, statements, index + 1));
+    }
+
+    private Uni<Void> finish(final Mutiny.Session session, final long targetId, final List<String> statements,
+                             final int index) {
+        if (index == statements.size()) {
+            return Uni.createFrom().voidItem();
+        }
+        return session.createNativeQuery(statements.get(index))
+                .setParameter("target", targetId)
+                .executeUpdate()
+                .chain(count -> finish(session, targetId, statements, index + 1));
+    }
+}
@@ -5,13 +5,21 @@ import com.example.fullstack.user.User;
 import io.quarkus.hibernate.reactive.panache.PanacheEntity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.ZonedDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "task_user_created_id_idx", columnList = "user_id, created, id"),
+        @Index(name = "task_project_idx", columnList = "project_id"),
+        @Index(name = "task_user_complete_priority_idx", columnList = "user_id, complete, priority"),
+        @Index(name = "task_user_project_idx", columnList = "user_id, project_id")
+})
 public class Task extends PanacheEntity {
     @Column(nullable = false)
     public String title;
@@ -25,6 +33,8 @@ public class Task extends PanacheEntity {
 
     public ZonedDateTime complete;
 
+    public ZonedDateTime due;
+
     @ManyToOne
     public Project project;
 
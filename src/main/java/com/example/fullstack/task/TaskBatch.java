@@ -0,0 +1,49 @@
+package com.example.fullstack.task;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Operations applied together by {@link TaskService#apply(TaskBatch)}, any of the lists may be omitted. Items may
+ * be {@code null} or incomplete, they are reported per item.
+ */
+public record TaskBatch(List<Task> create, List<Task> update, List<Completion> complete, List<Long> delete) {
+
+    public record Completion(long id, boolean complete) {
+    }
+
+    public TaskBatch {
+        create = create == null ? List.of() : create;
+        update = update == null ? List.of() : update;
+        complete = complete == null ? List.of() : complete;
+        delete = delete == null ? List.of() : delete;
+    }
+
+    int size() {
+        return create.size() + update.size() + complete.size() + delete.size();
+    }
+
+    List<Long> referencedIds() {
+        return Stream.of(
+                        update.stream().filter(Objects::nonNull).map(t -> t.id),
+                        complete.stream().filter(Objects::nonNull).map(Completion::id),
+                        delete.stream())
+                .flatMap(ids -> ids)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Ids of the projects the created and updated tasks are assigned to.
+     */
+    List<Long> referencedProjectIds() {
+        return Stream.concat(create.stream(), update.stream())
+                .filter(Objects::nonNull)
+                .map(t -> t.project == null ? null : t.project.id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+}
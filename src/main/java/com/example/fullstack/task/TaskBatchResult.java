@@ -0,0 +1,42 @@
+package com.example.fullstack.task;
+
+/**
+ * Outcome of one operation of a {@link TaskBatch}, {@code status} follows the HTTP status the equivalent
+ * single-task request would have returned.
+ */
+public record TaskBatchResult(Operation operation, Long id, int status, Integer version) {
+
+    public enum Operation {
+        CREATE, UPDATE, COMPLETE, DELETE
+    }
+
+    static TaskBatchResult ok(final Operation operation, final Task task) {
+        return new TaskBatchResult(operation, task.id, operation == Operation.CREATE ? 201 : 200, task.version);
+    }
+
+    static TaskBatchResult deleted(final Long id) {
+        return new TaskBatchResult(Operation.DELETE, id, 204, null);
+    }
+
+    static TaskBatchResult notFound(final Operation operation, final Long id) {
+        return new TaskBatchResult(operation, id, 404, null);
+    }
+
+    /**
+     * The item is missing, or lacks the id or title the operation needs.
+     */
+    static TaskBatchResult invalid(final Operation operation, final Long id) {
+        return new TaskBatchResult(operation, id, 400, null);
+    }
+
+    /**
+     * The task refers to a project that does not exist or belongs to someone else.
+     */
+    static TaskBatchResult unknownProject(final Operation operation, final Long id) {
+        return new TaskBatchResult(operation, id, 400, null);
+    }
+
+    static TaskBatchResult conflict(final Operation operation, final Task task) {
+        return new TaskBatchResult(operation, task.id, 409, task.version);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.fullstack.task;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the {@code (created, id)} ordering of a user's tasks.
+ * <p>
+ * Clients only see the opaque {@link #encode() encoded} form.
+ */
+public record TaskCursor(ZonedDateTime created, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static TaskCursor of(final TaskView task) {
+        return new TaskCursor(task.created(), task.id());
+    }
+
+    public String encode() {
+        final var raw = created.toInstant().toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TaskCursor decode(final String cursor) {
+        try {
+            final var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final var separator = raw.lastIndexOf(SEPARATOR);
+            return new TaskCursor(
+                    Instant.parse(raw.substring(0, separator)).atZone(ZoneOffset.UTC),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ClientErrorException("Invalid cursor", Response.Status.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.fullstack.task;
+
+/**
+ * Change notification for a task, routed to the owner's event stream. Clients fetch the task itself
+ * if they need more than the id and version.
+ */
+public record TaskEvent(Type type, long id, int version, String user) {
+
+    public enum Type {
+        CREATED, UPDATED, COMPLETED, DELETED
+    }
+
+    static TaskEvent of(final Type type, final Task task, final String user) {
+        return new TaskEvent(type, task.id, task.version, user);
+    }
+}
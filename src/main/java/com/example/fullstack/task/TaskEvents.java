@@ -0,0 +1,161 @@
+package com.example.fullstack.task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.smallrye.mutiny.operators.multi.processors.SerializedProcessor;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.pgclient.pubsub.PgSubscriber;
+import io.vertx.pgclient.PgConnectOptions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Task change feed shared by all application nodes through PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Events are published with {@code pg_notify} inside the writing transaction, so they are only delivered
+ * once it commits and never for a rollback. This holds for a single node as well, there is no in-process
+ * shortcut. Every node listens on a dedicated connection and fans the events out to the open streams of the
+ * owning user; without a reactive URL that connection uses the same defaults as the reactive pool.
+ * <p>
+ * The listening connection is re-established whenever it is lost or cannot be opened, with a back-off doubling
+ * up to {@value #MAX_RECONNECT_DELAY_MILLIS} ms. Events notified while it is down are not delivered on this
+ * node; the {@code task.events.connected} gauge is 0 meanwhile.
+ */
+@ApplicationScoped
+public class TaskEvents {
+
+    static final String CHANNEL = "task_events";
+    private static final Logger LOG = Logger.getLogger(TaskEvents.class);
+    private static final String REACTIVE_URL_PREFIX = "vertx-reactive:";
+    private static final long RECONNECT_DELAY_MILLIS = 1000L;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30_000L;
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final SerializedProcessor<TaskEvent, TaskEvent> events = BroadcastProcessor.<TaskEvent>create().serialized();
+    private final PgSubscriber subscriber;
+    private Cancellable connecting;
+
+    @Inject
+    public TaskEvents(final Vertx vertx,
+                      final ObjectMapper objectMapper,
+                      final MeterRegistry registry,
+                      final @ConfigProperty(name = "task.events.buffer-size", defaultValue = "256") int bufferSize,
+                      final @ConfigProperty(name = "quarkus.datasource.reactive.url") Optional<String> url,
+                      final @ConfigProperty(name = "quarkus.datasource.username") Optional<String> username,
+                      final @ConfigProperty(name = "quarkus.datasource.password") Optional<String> password) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        final var options = url
+                .map(u -> PgConnectOptions.fromUri(u.startsWith(REACTIVE_URL_PREFIX)
+                        ? u.substring(REACTIVE_URL_PREFIX.length()) : u))
+                .orElseGet(PgConnectOptions::new);
+        username.ifPresent(options::setUser);
+        password.ifPresent(options::setPassword);
+        this.subscriber = PgSubscriber.subscriber(vertx, options)
+                .reconnectPolicy(TaskEvents::reconnectDelay);
+        Gauge.builder("task.events.connected", subscriber, s -> s.actualConnection() != null ? 1 : 0)
+                .description("Whether the task event listener is connected to PostgreSQL")
+                .register(registry);
+    }
+
+    /**
+     * Delay before the given reconnect attempt, counted from 0 since the connection was lost.
+     */
+    static long reconnectDelay(final int attempts) {
+        return Math.min(MAX_RECONNECT_DELAY_MILLIS, RECONNECT_DELAY_MILLIS << Math.min(attempts, 5));
+    }
+
+    void onStart(@Observes final StartupEvent event) {
+        subscriber.channel(CHANNEL)
+                .subscribeHandler(() -> LOG.infof("Listening on %s", CHANNEL))
+                .handler(this::dispatch);
+        // The reconnect policy only covers a connection that was lost, a failed first connect is retried here
+        connecting = subscriber.connect()
+                .onFailure().invoke(e -> LOG.warnf(e, "Unable to listen on %s, retrying", CHANNEL))
+                .onFailure().retry()
+                .withBackOff(Duration.ofMillis(RECONNECT_DELAY_MILLIS), Duration.ofMillis(MAX_RECONNECT_DELAY_MILLIS))
+                .indefinitely()
+                .subscribe().with(v -> LOG.debugf("Connected to listen on %s", CHANNEL));
+    }
+
+    void onStop(@Observes final ShutdownEvent event) {
+        connecting.cancel();
+        subscriber.closeAndForget();
+        events.onComplete();
+    }
+
+    /**
+     * Queues the event in the current session's transaction.
+     */
+    Uni<Void> publish(final TaskEvent event) {
+        return publishAll(List.of(event));
+    }
+
+    /**
+     * Queues all events in the current session's transaction with a single statement.
+     */
+    Uni<Void> publishAll(final List<TaskEvent> batch) {
+        if (batch.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        final String[] payloads;
+        try {
+            payloads = new String[batch.size()];
+            for (int i = 0; i < payloads.length; i++) {
+                payloads[i] = objectMapper.writeValueAsString(batch.get(i));
+            }
+        } catch (JsonProcessingException e) {
+            return Uni.createFrom().failure(e);
+        }
+        return Task.getSession()
+                .chain(s -> s.createNativeQuery("select count(*) from (select pg_notify('" + CHANNEL
+                                + "', payload) from unnest(cast(:payloads as text[])) as payload) as notified", Long.class)
+                        .setParameter("payloads", payloads)
+                        .getSingleResult())
+                .replaceWithVoid();
+    }
+
+    /**
+     * Events of the given user's tasks. Each stream buffers at most {@code task.events.buffer-size} events
+     * for a slow client and is completed once that overflows, the client is expected to reconnect and
+     * reload.
+     */
+    Multi<TaskEvent> forUser(final String userName) {
+        return events
+                .filter(event -> userName.equals(event.user()))
+                .onOverflow().buffer(bufferSize)
+                .onFailure(BackPressureFailure.class).recoverWithCompletion();
+    }
+
+    /**
+     * Events of all users' tasks as they are dispatched on this node.
+     */
+    public Multi<TaskEvent> all() {
+        return events;
+    }
+
+    private void dispatch(final String payload) {
+        try {
+            events.onNext(objectMapper.readValue(payload, TaskEvent.class));
+        } catch (JsonProcessingException e) {
+            LOG.warnf(e, "Ignoring malformed task event %s", payload);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.fullstack.task;
+
+import jakarta.ws.rs.BadRequestException;
+import org.hibernate.reactive.mutiny.Mutiny;
+
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Optional restrictions and ordering of a task list, rendered into the owner-scoped projection query.
+ * Every restriction is served by one of the {@code (user_id, ...)} indexes of {@link Task}.
+ */
+public record TaskFilter(Long projectId, Boolean complete, Integer minPriority,
+                         ZonedDateTime createdAfter, ZonedDateTime createdBefore,
+                         ZonedDateTime completedAfter, ZonedDateTime completedBefore,
+                         Sort sort) {
+
+    public static final TaskFilter NONE = new TaskFilter(null, null, null, null, null, null, null, Sort.CREATED);
+
+    public enum Sort {
+        CREATED("t.created, t.id"),
+        CREATED_DESC("t.created desc, t.id desc"),
+        PRIORITY("t.priority nulls last, t.created, t.id"),
+        PRIORITY_DESC("t.priority desc nulls last, t.created, t.id"),
+        TITLE("t.title, t.id"),
+        TITLE_DESC("t.title desc, t.id");
+
+        private final String orderBy;
+
+        Sort(final String orderBy) {
+            this.orderBy = orderBy;
+        }
+
+        /**
+         * Parses {@code field} or {@code -field} for descending order, {@code null} means creation order.
+         */
+        static Sort parse(final String sort) {
+            if (sort == null || sort.isBlank()) {
+                return CREATED;
+            }
+            final var descending = sort.startsWith("-");
+            final var name = (descending ? sort.substring(1) : sort).toUpperCase(Locale.ROOT);
+            try {
+                return valueOf(descending ? name + "_DESC" : name);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("sort must be one of created, priority or title, optionally prefixed with -");
+            }
+        }
+    }
+
+    public static TaskFilter of(final Long projectId, final Boolean complete, final Integer minPriority,
+                                final String createdAfter, final String createdBefore,
+                                final String completedAfter, final String completedBefore,
+                                final String sort) {
+        return new TaskFilter(projectId, complete, minPriority,
+                timestamp("createdAfter", createdAfter), timestamp("createdBefore", createdBefore),
+                timestamp("completedAfter", completedAfter), timestamp("completedBefore", completedBefore),
+                Sort.parse(sort));
+    }
+
+    private static ZonedDateTime timestamp(final String name, final String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(value).toZonedDateTime();
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be an ISO-8601 timestamp with offset");
+        }
+    }
+
+    /**
+     * Conditions to append to a query that already restricts {@code Task t} to its owner.
+     */
+    String where() {
+        final var where = new StringBuilder();
+        if (projectId != null) {
+            where.append(" and t.project.id = :projectId");
+        }
+        if (complete != null) {
+            where.append(complete ? " and t.complete is not null" : " and t.complete is null");
+        }
+        if (minPriority != null) {
+            where.append(" and t.priority >= :minPriority");
+        }
+        if (createdAfter != null) {
+            where.append(" and t.created >= :createdAfter");
+        }
+        if (createdBefore != null) {
+            where.append(" and t.created < :createdBefore");
+        }
+        if (completedAfter != null) {
+            where.append(" and t.complete >= :completedAfter");
+        }
+        if (completedBefore != null) {
+            where.append(" and t.complete < :completedBefore");
+        }
+        return where.toString();
+    }
+
+    String orderBy() {
+        return " order by " + sort.orderBy;
+    }
+
+    <R> Mutiny.SelectionQuery<R> bind(final Mutiny.SelectionQuery<R> query) {
+        if (projectId != null) {
+            query.setParameter("projectId", projectId);
+        }
+        if (minPriority != null) {
+            query.setParameter("minPriority", minPriority);
+        }
+        if (createdAfter != null) {
+            query.setParameter("createdAfter", createdAfter);
+        }
+        if (createdBefore != null) {
+            query.setParameter("createdBefore", createdBefore);
+        }
+        if (completedAfter != null) {
+            query.setParameter("completedAfter", completedAfter);
+        }
+        if (completedBefore != null) {
+            query.setParameter("completedBefore", completedBefore);
+        }
+        return query;
+    }
+}
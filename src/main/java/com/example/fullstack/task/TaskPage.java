@@ -0,0 +1,9 @@
+package com.example.fullstack.task;
+
+import java.util.List;
+
+/**
+ * One keyset page of tasks, {@code next} is {@code null} on the last page.
+ */
+public record TaskPage(List<TaskView> tasks, TaskCursor next) {
+}
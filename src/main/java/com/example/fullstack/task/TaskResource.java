@@ -1,34 +1,179 @@
 package com.example.fullstack.task;
 
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.MergePatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
 import org.jboss.resteasy.reactive.ResponseStatus;
+import org.jboss.resteasy.reactive.RestMediaType;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 import java.util.List;
 
 @Path("/api/v1/tasks")
 @RolesAllowed("user")
+@Timed(value = "rest.resource.requests", histogram = true)
 public class TaskResource {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
     @Inject
-    public TaskResource(TaskService taskService) {
+    public TaskResource(TaskService taskService, ObjectMapper objectMapper) {
         this.taskService = taskService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Lists the tasks of the current user, all of them unless {@code limit} or {@code next} is given.
+     * <p>
+     * The optional filters are combined with {@code and}, timestamps are ISO-8601 with offset, lower bounds
+     * inclusive and upper bounds exclusive. {@code sort} takes {@code created}, {@code priority} or
+     * {@code title}, prefixed with {@code -} for descending order; pages are only available in creation order.
+     * <p>
+     * The full list is tagged with an aggregate ETag and answered with 304 on a matching {@code If-None-Match}
+     * without loading the tasks. Paginated responses carry a {@code Link: <...>; rel="next"} header while
+     * more tasks follow.
+     */
+    @GET
+    public Uni<Response> get(@QueryParam("limit") Integer limit,
+                             @QueryParam("next") String next,
+                             @QueryParam("projectId") Long projectId,
+                             @QueryParam("complete") Boolean complete,
+                             @QueryParam("minPriority") Integer minPriority,
+                             @QueryParam("createdAfter") String createdAfter,
+                             @QueryParam("createdBefore") String createdBefore,
+                             @QueryParam("completedAfter") String completedAfter,
+                             @QueryParam("completedBefore") String completedBefore,
+                             @QueryParam("sort") String sort,
+                             @Context UriInfo uriInfo,
+                             @Context Request request) {
+        final var filter = TaskFilter.of(projectId, complete, minPriority, createdAfter, createdBefore,
+                completedAfter, completedBefore, sort);
+        if (limit == null && next == null) {
+            // The aggregate tag covers all of the user's tasks, so it also changes whenever a filtered list does
+            return taskService.listTag()
+                    .chain(tag -> {
+                        final var notModified = request.evaluatePreconditions(tag);
+                        if (notModified != null) {
+                            return Uni.createFrom().item(notModified.build());
+                        }
+                        return taskService.listForUser(filter)
+                                .map(tasks -> Response.ok(tasks).tag(tag).build());
+                    });
+        }
+        final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (filter.sort() != TaskFilter.Sort.CREATED) {
+            throw new BadRequestException("limit and next are only supported in creation order");
+        }
+        final var after = next == null ? null : TaskCursor.decode(next);
+        return taskService.listForUser(filter, after, pageSize)
+                .map(page -> {
+                    final var response = Response.ok(page.tasks());
+                    if (page.next() != null) {
+                        response.link(uriInfo.getRequestUriBuilder()
+                                .replaceQueryParam("limit", pageSize)
+                                .replaceQueryParam("next", page.next().encode())
+                                .build(), "next");
+                    }
+                    return response.build();
+                });
+    }
+
+    /**
+     * Ranked full-text search over the current user's tasks, paginated by {@code limit} and {@code offset}
+     * with a {@code Link: <...>; rel="next"} header while more matches may follow.
+     */
+    @GET
+    @Path("/search")
+    public Uni<Response> search(@QueryParam("q") String q,
+                                @QueryParam("limit") Integer limit,
+                                @QueryParam("offset") @DefaultValue("0") int offset,
+                                @Context UriInfo uriInfo) {
+        if (q == null || q.isBlank()) {
+            throw new BadRequestException("q must not be empty");
+        }
+        final int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (offset < 0) {
+            throw new BadRequestException("offset must not be negative");
+        }
+        return taskService.search(q, pageSize, offset)
+                .map(tasks -> {
+                    final var response = Response.ok(tasks);
+                    if (tasks.size() == pageSize) {
+                        response.link(uriInfo.getRequestUriBuilder()
+                                .replaceQueryParam("limit", pageSize)
+                                .replaceQueryParam("offset", offset + pageSize)
+                                .build(), "next");
+                    }
+                    return response.build();
+                });
+    }
+
+    @GET
+    @Path("/{id}")
+    public Uni<Response> get(@PathParam("id") long id, @Context Request request) {
+        return taskService.findById(id)
+                .map(task -> {
+                    final var tag = EntityTags.of(task.id, task.version);
+                    final var notModified = request.evaluatePreconditions(tag);
+                    return (notModified != null ? notModified : Response.ok(task).tag(tag)).build();
+                });
+    }
+
+    /**
+     * Streams all tasks of the current user as newline delimited JSON without buffering the full list.
+     */
+    @GET
+    @Path("/export")
+    @Produces(RestMediaType.APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<TaskView> stream() {
+        return taskService.streamForUser();
     }
 
+    /**
+     * Server-sent events for changes of the current user's tasks, on every node of the application.
+     */
     @GET
-    public Uni<List<Task>> get() {
-        return taskService.listForUser();
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<TaskEvent> events() {
+        return taskService.events();
     }
 
     @POST
@@ -38,18 +183,61 @@ public class TaskResource {
         return taskService.create(task);
     }
 
+    /**
+     * Applies creates, updates, completions and deletes in one transaction, see {@link TaskService#apply(TaskBatch)}.
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("/batch")
+    public Uni<List<TaskBatchResult>> createBatch(TaskBatch batch) {
+        return applyBatch(batch);
+    }
+
+    @PATCH
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("/batch")
+    public Uni<List<TaskBatchResult>> updateBatch(TaskBatch batch) {
+        return applyBatch(batch);
+    }
+
+    private Uni<List<TaskBatchResult>> applyBatch(TaskBatch batch) {
+        if (batch == null || batch.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("A batch must contain at most " + MAX_BATCH_SIZE + " operations");
+        }
+        return taskService.apply(batch);
+    }
+
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
     @Path("/{id}")
-    public Uni<Task> update(@PathParam("id") long id, Task task) {
+    public Uni<Response> update(@PathParam("id") long id,
+                                @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                Task task) {
         task.id = id;
-        return taskService.update(task);
+        return taskService.update(task, EntityTags.expectedVersion(ifMatch, id))
+                .map(updated -> Response.ok(updated).tag(EntityTags.of(updated.id, updated.version)).build());
+    }
+
+    /**
+     * Partial update with an RFC 7386 merge patch, only the given members are written.
+     */
+    @PATCH
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Path("/{id}")
+    public Uni<Response> patch(@PathParam("id") long id,
+                               @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                               String body) {
+        final var patch = MergePatch.parse(objectMapper, body, TaskService.PATCHABLE,
+                EntityTags.expectedVersion(ifMatch, id));
+        return taskService.patch(id, patch)
+                .map(task -> Response.ok(task).tag(EntityTags.of(task.id, task.version)).build());
     }
 
     @DELETE
     @Path("/{id}")
-    public Uni<Void> delete(@PathParam("id") long id) {
-        return taskService.delete(id);
+    public Uni<Void> delete(@PathParam("id") long id,
+                            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        return taskService.delete(id, EntityTags.expectedVersion(ifMatch, id));
     }
 
     @PUT
@@ -1,84 +1,568 @@
 package com.example.fullstack.task;
 
+import com.example.fullstack.Deadline;
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.MergePatch;
+import com.example.fullstack.SingleFlight;
+import com.example.fullstack.Transactions;
+import com.example.fullstack.project.Project;
+import com.example.fullstack.project.ProjectService;
+import com.example.fullstack.user.User;
 import com.example.fullstack.user.UserService;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import io.quarkus.hibernate.reactive.panache.Panache;
 import io.quarkus.security.UnauthorizedException;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.pgclient.PgException;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.hibernate.ObjectNotFoundException;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @ApplicationScoped
+@Deadline
 public class TaskService {
+    static final int STREAM_PAGE_SIZE = 200;
+    private static final String VIEW_QUERY = "select new com.example.fullstack.task.TaskView("
+            + "t.id, t.title, t.description, t.priority, t.complete, t.due, t.created, t.version, u.id, u.name, p.id, p.name) "
+            + "from Task t join t.user u left join t.project p on p.deleted is null where u.name = :user";
+    private static final String VIEW_ORDER = " order by t.created, t.id";
+    // search_vector is a generated column, see import.sql, so every write path keeps it current
+    private static final String SEARCH_QUERY = "select t.id from task t join users u on u.id = t.user_id "
+            + "where u.name = :user and u.deleted is null and t.search_vector @@ websearch_to_tsquery('english', :q) "
+            + "order by ts_rank(t.search_vector, websearch_to_tsquery('english', :q)) desc, t.id "
+            + "limit :limit offset :offset";
+
+    // serialization_failure, deadlock_detected, lock_not_available
+    private static final Set<String> TRANSIENT_LOCK_ERRORS = Set.of("40001", "40P01", "55P03");
+    private static final Duration RETRY_INITIAL_BACKOFF = Duration.ofMillis(10);
+
+    static final Map<String, MergePatch.Field> PATCHABLE = Map.of(
+            "title", MergePatch.Field.text("title", false),
+            "description", MergePatch.Field.text("description", true),
+            "priority", MergePatch.Field.integer("priority", true),
+            "complete", MergePatch.Field.timestamp("complete", true),
+            "due", MergePatch.Field.timestamp("due", true),
+            "project", MergePatch.Field.reference("project", true, Project.class));
+
     private final UserService userService;
+    private final ProjectService projectService;
+    private final TaskEvents taskEvents;
+    private final SingleFlight singleFlight;
+    private final Transactions transactions;
+    private final int completeRetries;
 
     @Inject
-    public TaskService(final UserService userService) {
+    public TaskService(final UserService userService,
+                       final ProjectService projectService,
+                       final TaskEvents taskEvents,
+                       final SingleFlight singleFlight,
+                       final Transactions transactions,
+                       final @ConfigProperty(name = "task.complete.retry.max-attempts", defaultValue = "0") int completeRetries) {
         this.userService = userService;
+        this.projectService = projectService;
+        this.taskEvents = taskEvents;
+        this.singleFlight = singleFlight;
+        this.transactions = transactions;
+        this.completeRetries = completeRetries;
     }
 
+    /**
+     * Loads a task of the current user in a single statement, the owner is matched in the query
+     * rather than compared after loading. The owner's eager roles are fetched by the same statement, and read
+     * as a list because a row limit cannot be applied in SQL to a collection fetch.
+     */
     public Uni<Task> findById(long id) {
-        return userService.getCurrentUser()
-                .chain(user -> Task.<Task>findById(id)
-                        .onItem().ifNull().failWith(() -> new ObjectNotFoundException(id, "Task"))
-                        .onItem().invoke(task -> {
-                            if (!user.equals(task.user)) {
-                                throw new UnauthorizedException("You are not allowed to update this task");
-                            }
-                        })) ;
+        return Task.<Task>find("from Task t join fetch t.user u left join fetch u.roles left join fetch t.project "
+                                + "where t.id = ?1 and u.name = ?2",
+                        id, userService.getCurrentUserName())
+                .list()
+                .map(tasks -> tasks.isEmpty() ? null : tasks.get(0))
+                .onItem().ifNull().switchTo(() -> notFoundOrNotOwned(id));
     }
 
     public Uni<Task> find(final Task task) {
-        return userService.getCurrentUser()
-                .chain(user -> Task.<Task>findById(task.id)
-                        .onItem().ifNull().failWith(() -> new ObjectNotFoundException(task, "Task"))
-                        .onItem().invoke(
-                                t -> {
-                                    if (!user.equals(t.user)) {
-                                        throw new UnauthorizedException("You are not allowed to update this task");
-                                    }
-                                }
-                        ));
+        return findById(task.id);
     }
 
-    public Uni<List<Task>> listForUser() {
-        return userService.getCurrentUser()
-                .chain(user -> Task.find("user", user).list());
+    /**
+     * Checks that a project assigned to a task is one of the current user's, answering 404 or 401 for another
+     * user's project like {@link ProjectService#findById(long)}. No project passes.
+     */
+    private Uni<Void> checkProject(final Project project) {
+        return checkProject(project == null ? null : project.id);
     }
 
-    @WithTransaction
-    public Uni<Task> create(Task task) {
-        return userService.getCurrentUser()
-                .chain(user -> {
-                    task.user = user;
-                    return task.persistAndFlush();
+    private Uni<Void> checkProject(final Long projectId) {
+        return projectId == null
+                ? Uni.createFrom().voidItem()
+                : projectService.findById(projectId).replaceWithVoid();
+    }
+
+    /**
+     * Only reached when the owner-scoped lookup found nothing, tells a missing task apart from someone else's.
+     */
+    private static Uni<Task> notFoundOrNotOwned(final long id) {
+        return Task.count("id", id)
+                .map(count -> {
+                    if (count == 0) {
+                        throw new ObjectNotFoundException(id, "Task");
+                    }
+                    throw new UnauthorizedException("You are not allowed to update this task");
                 });
     }
 
-    @WithTransaction
+    public Uni<List<TaskView>> listForUser() {
+        return listForUser(TaskFilter.NONE);
+    }
+
+    /**
+     * Lists the current user's tasks, concurrent identical requests of the same user share one query.
+     */
+    public Uni<List<TaskView>> listForUser(final TaskFilter filter) {
+        final var userName = userService.getCurrentUserName();
+        return singleFlight.join(userName, List.of("tasks", filter), () -> Task.getSession()
+                .chain(s -> filter.bind(s.createSelectionQuery(VIEW_QUERY + filter.where() + filter.orderBy(),
+                                TaskView.class))
+                        .setParameter("user", userName)
+                        .getResultList()));
+    }
+
+    /**
+     * Full-text search over title and description of the current user's tasks, best matches first. The ranked
+     * ids come from the GIN-indexed {@code search_vector}, the page itself is loaded by the regular projection.
+     * Both run in one read transaction, which bounds them by the request's deadline.
+     */
+    public Uni<List<TaskView>> search(final String text, final int limit, final int offset) {
+        final var userName = userService.getCurrentUserName();
+        return transactions.withTransaction(TaskService.class, "search", () -> Task.getSession()
+                .chain(s -> s.createNativeQuery(SEARCH_QUERY, Long.class)
+                        .setParameter("user", userName)
+                        .setParameter("q", text)
+                        .setParameter("limit", limit)
+                        .setParameter("offset", offset)
+                        .getResultList()
+                        .chain(ids -> ids.isEmpty()
+                                ? Uni.createFrom().item(List.<TaskView>of())
+                                : s.createSelectionQuery(VIEW_QUERY + " and t.id in :ids", TaskView.class)
+                                        .setParameter("user", userName)
+                                        .setParameter("ids", ids)
+                                        .getResultList()
+                                        .map(tasks -> {
+                                            final var byId = new HashMap<Long, TaskView>();
+                                            tasks.forEach(task -> byId.put(task.id(), task));
+                                            return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+                                        }))));
+    }
+
+    public Uni<TaskPage> listForUser(final TaskCursor after, final int limit) {
+        return listForUser(TaskFilter.NONE, after, limit);
+    }
+
+    /**
+     * One keyset page of the filtered tasks, only available in creation order. Read in a transaction that
+     * bounds the query by the request's deadline.
+     */
+    public Uni<TaskPage> listForUser(final TaskFilter filter, final TaskCursor after, final int limit) {
+        final var userName = userService.getCurrentUserName();
+        return transactions.withTransaction(TaskService.class, "listForUser",
+                () -> listPage(userName, filter, after, limit));
+    }
+
+    /**
+     * Streams every task of the current user in {@code (created, id)} order, fetching one keyset page at a time
+     * and only when the subscriber requests more items.
+     */
+    public Multi<TaskView> streamForUser() {
+        final var userName = userService.getCurrentUserName();
+        return Multi.createBy().repeating()
+                .uni(AtomicReference<TaskCursor>::new, last -> Panache
+                        .withSession(() -> listPage(userName, TaskFilter.NONE, last.get(), STREAM_PAGE_SIZE))
+                        .invoke(page -> last.set(page.next())))
+                .whilst(page -> page.next() != null)
+                .onItem().transformToIterable(TaskPage::tasks);
+    }
+
+    private static Uni<TaskPage> listPage(final String userName, final TaskFilter filter, final TaskCursor after,
+                                          final int limit) {
+        final var hql = after == null
+                ? VIEW_QUERY + filter.where() + VIEW_ORDER
+                : VIEW_QUERY + filter.where() + " and (t.created, t.id) > (:created, :id)" + VIEW_ORDER;
+        return Task.getSession()
+                .chain(s -> {
+                    final var query = filter.bind(s.createSelectionQuery(hql, TaskView.class))
+                            .setParameter("user", userName)
+                            // One extra row tells whether another page follows without a count query
+                            .setMaxResults(limit + 1);
+                    if (after != null) {
+                        query.setParameter("created", after.created()).setParameter("id", after.id());
+                    }
+                    return query.getResultList();
+                })
+                .map(tasks -> tasks.size() > limit
+                        ? new TaskPage(tasks.subList(0, limit), TaskCursor.of(tasks.get(limit - 1)))
+                        : new TaskPage(tasks, null));
+    }
+
+    /**
+     * Changes of the current user's tasks, as published by the write operations of this service.
+     */
+    public Multi<TaskEvent> events() {
+        return taskEvents.forUser(userService.getCurrentUserName());
+    }
+
+    /**
+     * The mutators below run in transactions of their own and detach the user's in-flight reads after the
+     * commit, so a list requested once the write has returned reflects it.
+     */
+    public Uni<Task> create(Task task) {
+        return transactions.withTransaction(TaskService.class, "create", () -> checkProject(task.project)
+                        .chain(userService::getCurrentUser)
+                        .chain(user -> {
+                            task.user = user;
+                            return task.<Task>persistAndFlush();
+                        })
+                        .call(t -> publish(TaskEvent.Type.CREATED, t)))
+                .invoke(this::forgetReads);
+    }
+
     public Uni<Task> update(Task task) {
-        return findById(task.id)
-                .chain(t -> Task.getSession())
-                .chain(s -> s.merge(task));
+        return transactions.withTransaction(TaskService.class, "update", () -> findById(task.id)
+                        .call(t -> checkProject(task.project))
+                        .chain(t -> Task.getSession())
+                        .chain(s -> s.merge(task))
+                        // Flushed first so the event carries the new version
+                        .call(t -> Task.flush())
+                        .call(t -> publish(TaskEvent.Type.UPDATED, t)))
+                .invoke(this::forgetReads);
+    }
+
+    /**
+     * Replaces the task only if it is still at {@code expectedVersion}. The version is compared by the owner-scoped
+     * {@code update} itself, a stale precondition is rejected with 412 without loading the task first. The project
+     * the task is assigned to is checked to be the user's own before.
+     */
+    public Uni<Task> update(final Task task, final Integer expectedVersion) {
+        if (expectedVersion == null) {
+            return update(task);
+        }
+        final var userName = userService.getCurrentUserName();
+        return transactions.withTransaction(TaskService.class, "update", () -> checkProject(task.project)
+                .chain(Task::getSession)
+                .chain(s -> s.createMutationQuery("update Task set title = :title, description = :description, "
+                                + "priority = :priority, complete = :complete, due = :due, project = :project, "
+                                + "version = version + 1 where id = :id and version = :version "
+                                + "and user.id in (select u.id from User u where u.name = :user)")
+                        .setParameter("title", task.title)
+                        .setParameter("description", task.description)
+                        .setParameter("priority", task.priority)
+                        .setParameter("complete", task.complete)
+                        .setParameter("due", task.due)
+                        .setParameter("project", task.project == null || task.project.id == null
+                                ? null : s.getReference(Project.class, task.project.id))
+                        .setParameter("id", task.id)
+                        .setParameter("version", expectedVersion)
+                        .setParameter("user", userName)
+                        .executeUpdate())
+                .chain(updated -> updated > 0 ? findById(task.id) : staleOrMissing(task.id))
+                .call(t -> publish(TaskEvent.Type.UPDATED, t)))
+                .invoke(this::forgetReads);
+    }
+
+    /**
+     * Applies a merge patch with one {@code update} of the patched columns, owner-scoped and, when the patch
+     * carries a version, conditional on it. A patched project is checked to be the user's own before. A patch that
+     * changes nothing is not written, it neither increments the version nor publishes an event.
+     */
+    public Uni<Task> patch(final long id, final MergePatch patch) {
+        final var userName = userService.getCurrentUserName();
+        final var projectId = (Long) patch.value("project");
+        return transactions.withTransaction(TaskService.class, "patch", () -> checkProject(projectId)
+                        .chain(() -> patchRow(id, patch, userName))
+                        .chain(updated -> updated > 0
+                                ? findById(id).call(task -> publish(TaskEvent.Type.UPDATED, task))
+                                : unchanged(id, patch.version())))
+                .invoke(this::forgetReads);
+    }
+
+    /**
+     * Runs the patch's {@code update}, the number of rows it changed.
+     */
+    private static Uni<Integer> patchRow(final long id, final MergePatch patch, final String userName) {
+        if (patch.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        return Task.getSession()
+                .chain(s -> patch.bind(s, s.createMutationQuery("update Task set " + patch.assignments()
+                                + " where id = :id and user.id in (select u.id from User u where u.name = :user)"
+                                + patch.versionCondition() + patch.changeCondition()))
+                        .setParameter("id", id)
+                        .setParameter("user", userName)
+                        .executeUpdate());
     }
 
-    @WithTransaction
     public Uni<Void> delete(final long id) {
-        return findById(id)
-                .chain(Task::delete);
+        return transactions.withTransaction(TaskService.class, "delete", () -> findById(id)
+                        .call(task -> publish(TaskEvent.Type.DELETED, task))
+                        .chain(Task::delete))
+                .invoke(this::forgetReads);
+    }
+
+    /**
+     * Deletes the task only if it is still at {@code expectedVersion}, checked by the delete statement itself.
+     */
+    public Uni<Void> delete(final long id, final Integer expectedVersion) {
+        if (expectedVersion == null) {
+            return delete(id);
+        }
+        final var userName = userService.getCurrentUserName();
+        return transactions.withTransaction(TaskService.class, "delete", () -> Task.delete(
+                                "id = ?1 and version = ?2 and user.id in (select u.id from User u where u.name = ?3)",
+                                id, expectedVersion, userName)
+                        .chain(deleted -> deleted > 0
+                                ? taskEvents.publish(new TaskEvent(TaskEvent.Type.DELETED, id, expectedVersion, userName))
+                                : staleOrMissing(id).replaceWithVoid()))
+                .invoke(this::forgetReads);
+    }
+
+    /**
+     * Reached when a patch changed nothing: reports 404/401 first, a task that is found fails the precondition
+     * when it has another version than the expected one and is returned as it is otherwise.
+     */
+    private Uni<Task> unchanged(final long id, final Integer expectedVersion) {
+        return findById(id).map(task -> {
+            if (expectedVersion != null && task.version != expectedVersion) {
+                throw EntityTags.preconditionFailed();
+            }
+            return task;
+        });
     }
 
-    @WithTransaction
+    /**
+     * Reached when a versioned statement changed nothing: reports 404/401 first, a task that is found had
+     * another version and fails the precondition.
+     */
+    private Uni<Task> staleOrMissing(final long id) {
+        return findById(id).<Task>map(task -> {
+            throw EntityTags.preconditionFailed();
+        });
+    }
+
+    /**
+     * Entity tag of the current user's task list, changes whenever a task or project of the user is
+     * created, updated or deleted.
+     */
+    public Uni<EntityTag> listTag() {
+        final var userName = userService.getCurrentUserName();
+        return singleFlight.join(userName, "tasks-tag", () -> Task.getSession()
+                .chain(s -> s.createSelectionQuery("select count(t.id), coalesce(sum(t.version), 0), "
+                                + "coalesce(max(t.id), 0), "
+                                + "(select count(p.id) from Project p where p.user.name = :user), "
+                                + "(select coalesce(sum(p.version), 0) from Project p where p.user.name = :user) "
+                                + "from Task t where t.user.name = :user", Object[].class)
+                        .setParameter("user", userName)
+                        .getSingleResult())
+                .map(aggregate -> EntityTags.ofAggregate("tasks", aggregate)));
+    }
+
+    /**
+     * Sets or clears the completion timestamp with a single owner-scoped {@code UPDATE ... RETURNING}, without
+     * loading the task first.
+     * <p>
+     * Setting a fixed completion state is idempotent, so transient lock failures (the row lock not granted
+     * within {@code lock_timeout}, a deadlock or a serialization failure) are retried server side up to
+     * {@code task.complete.retry.max-attempts} times, each attempt in its own transaction.
+     */
     public Uni<Boolean> setComplete(final long id, final boolean complete) {
-        return findById(id)
-                .chain(task -> {
-                    task.complete = complete ? ZonedDateTime.now() : null;
-                    return task.persistAndFlush();
-                })
-                .chain(task -> Uni.createFrom().item(complete));
+        final var userName = userService.getCurrentUserName();
+        final var attempt = transactions.withTransaction(TaskService.class, "setComplete",
+                () -> complete(id, complete, userName));
+        return (completeRetries > 0
+                ? attempt.onFailure(TaskService::isTransientLockFailure).retry()
+                .withBackOff(RETRY_INITIAL_BACKOFF).atMost(completeRetries)
+                : attempt)
+                .invoke(() -> singleFlight.forget(userName))
+                .replaceWith(complete);
+    }
+
+    private Uni<Void> complete(final long id, final boolean complete, final String userName) {
+        return Task.getSession()
+                .chain(s -> s.createNativeQuery("update task set complete = :complete, version = version + 1 "
+                                + "where id = :id and user_id = (select u.id from users u where u.name = :user and u.deleted is null) "
+                                + "returning version", Integer.class)
+                        .setParameter("complete", complete ? ZonedDateTime.now() : null)
+                        .setParameter("id", id)
+                        .setParameter("user", userName)
+                        .getSingleResultOrNull())
+                .chain(version -> version == null
+                        ? notFoundOrNotOwned(id).replaceWithVoid()
+                        : taskEvents.publish(new TaskEvent(complete ? TaskEvent.Type.COMPLETED : TaskEvent.Type.UPDATED,
+                        id, version, userName)));
+    }
+
+    private static boolean isTransientLockFailure(Throwable throwable) {
+        while (throwable != null) {
+            if (throwable instanceof PgException pg && TRANSIENT_LOCK_ERRORS.contains(pg.getSqlState())) {
+                return true;
+            }
+            throwable = throwable.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Applies all operations of the batch in one transaction and a single flush, so the resulting
+     * statements are sent as JDBC-style batches.
+     * <p>
+     * Referenced tasks and projects are loaded owner-scoped with one query each. Operations on tasks that are
+     * missing, not owned or (for updates) at another version, and creates or updates assigning a project the
+     * user does not own, are skipped and reported per item, the others are applied. So are items that are
+     * {@code null} or lack the id or title their operation needs, with 400.
+     */
+    public Uni<List<TaskBatchResult>> apply(final TaskBatch batch) {
+        final var userName = userService.getCurrentUserName();
+        final var ids = batch.referencedIds();
+        final var projectIds = batch.referencedProjectIds();
+        return transactions.withTransaction(TaskService.class, "apply", () -> userService.getCurrentUser()
+                .chain(user -> (ids.isEmpty()
+                        ? Uni.createFrom().item(List.<Task>of())
+                        : Task.<Task>find("from Task t join fetch t.user u left join fetch u.roles "
+                        + "left join fetch t.project where t.id in ?1 and u.name = ?2", ids, userName).list())
+                        .chain(tasks -> (projectIds.isEmpty()
+                                ? Uni.createFrom().item(List.<Project>of())
+                                : Project.<Project>find("from Project p where p.id in ?1 and p.user.name = ?2",
+                                projectIds, userName).list())
+                                .chain(projects -> {
+                                    final Map<Long, Task> owned = new HashMap<>();
+                                    tasks.forEach(t -> owned.put(t.id, t));
+                                    final Map<Long, Project> ownedProjects = new HashMap<>();
+                                    projects.forEach(p -> ownedProjects.put(p.id, p));
+                                    return applyTo(batch, user, owned, ownedProjects, userName);
+                                }))))
+                .invoke(() -> singleFlight.forget(userName));
+    }
+
+    /**
+     * A batch item to create or update from needs at least the title, the only required column.
+     */
+    private static boolean isWritable(final Task task) {
+        return task != null && task.title != null;
+    }
+
+    /**
+     * Resolves the project a batch item assigns against the user's own projects, {@code false} when it refers
+     * to one that is missing or someone else's.
+     */
+    private static boolean resolveProject(final Task task, final Map<Long, Project> ownedProjects) {
+        if (task.project == null || task.project.id == null) {
+            task.project = null;
+            return true;
+        }
+        task.project = ownedProjects.get(task.project.id);
+        return task.project != null;
+    }
+
+    private Uni<List<TaskBatchResult>> applyTo(final TaskBatch batch, final User user, final Map<Long, Task> owned,
+                                               final Map<Long, Project> ownedProjects, final String userName) {
+        // Evaluated after the flush, when ids and versions are final
+        final List<Supplier<TaskBatchResult>> results = new ArrayList<>(batch.size());
+        final List<Supplier<TaskEvent>> events = new ArrayList<>(batch.size());
+        final List<Task> created = new ArrayList<>();
+        final List<Task> deleted = new ArrayList<>();
+        final var now = ZonedDateTime.now();
+        for (final var task : batch.create()) {
+            if (!isWritable(task)) {
+                results.add(() -> TaskBatchResult.invalid(TaskBatchResult.Operation.CREATE, null));
+                continue;
+            }
+            if (!resolveProject(task, ownedProjects)) {
+                results.add(() -> TaskBatchResult.unknownProject(TaskBatchResult.Operation.CREATE, null));
+                continue;
+            }
+            task.id = null;
+            task.version = 0;
+            task.user = user;
+            created.add(task);
+            results.add(() -> TaskBatchResult.ok(TaskBatchResult.Operation.CREATE, task));
+            events.add(() -> TaskEvent.of(TaskEvent.Type.CREATED, task, userName));
+        }
+        for (final var update : batch.update()) {
+            if (!isWritable(update) || update.id == null) {
+                results.add(() -> TaskBatchResult.invalid(TaskBatchResult.Operation.UPDATE,
+                        update == null ? null : update.id));
+                continue;
+            }
+            final var task = owned.get(update.id);
+            if (task == null) {
+                results.add(() -> TaskBatchResult.notFound(TaskBatchResult.Operation.UPDATE, update.id));
+            } else if (task.version != update.version) {
+                results.add(() -> TaskBatchResult.conflict(TaskBatchResult.Operation.UPDATE, task));
+            } else if (!resolveProject(update, ownedProjects)) {
+                results.add(() -> TaskBatchResult.unknownProject(TaskBatchResult.Operation.UPDATE, update.id));
+            } else {
+                task.title = update.title;
+                task.description = update.description;
+                task.priority = update.priority;
+                task.project = update.project;
+                results.add(() -> TaskBatchResult.ok(TaskBatchResult.Operation.UPDATE, task));
+                events.add(() -> TaskEvent.of(TaskEvent.Type.UPDATED, task, userName));
+            }
+        }
+        for (final var completion : batch.complete()) {
+            if (completion == null) {
+                results.add(() -> TaskBatchResult.invalid(TaskBatchResult.Operation.COMPLETE, null));
+                continue;
+            }
+            final var task = owned.get(completion.id());
+            if (task == null) {
+                results.add(() -> TaskBatchResult.notFound(TaskBatchResult.Operation.COMPLETE, completion.id()));
+            } else {
+                task.complete = completion.complete() ? now : null;
+                results.add(() -> TaskBatchResult.ok(TaskBatchResult.Operation.COMPLETE, task));
+                events.add(() -> TaskEvent.of(completion.complete() ? TaskEvent.Type.COMPLETED
+                        : TaskEvent.Type.UPDATED, task, userName));
+            }
+        }
+        for (final var id : batch.delete()) {
+            if (id == null) {
+                results.add(() -> TaskBatchResult.invalid(TaskBatchResult.Operation.DELETE, null));
+                continue;
+            }
+            final var task = owned.remove(id);
+            if (task == null) {
+                results.add(() -> TaskBatchResult.notFound(TaskBatchResult.Operation.DELETE, id));
+            } else {
+                deleted.add(task);
+                results.add(() -> TaskBatchResult.deleted(id));
+                events.add(() -> TaskEvent.of(TaskEvent.Type.DELETED, task, userName));
+            }
+        }
+        return Task.getSession()
+                .chain(s -> s.persistAll(created.toArray())
+                        .chain(() -> s.removeAll(deleted.toArray()))
+                        .chain(s::flush))
+                .chain(() -> taskEvents.publishAll(events.stream().map(Supplier::get).toList()))
+                .map(v -> results.stream().map(Supplier::get).toList());
+    }
+
+    private void forgetReads() {
+        singleFlight.forget(userService.getCurrentUserName());
+    }
+
+    private Uni<Void> publish(final TaskEvent.Type type, final Task task) {
+        return taskEvents.publish(TaskEvent.of(type, task, userService.getCurrentUserName()));
     }
 
 }
@@ -0,0 +1,166 @@
+package com.example.fullstack.user;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.elytron.security.common.BcryptUtil;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.WorkerExecutor;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs bcrypt hashing and verification on a dedicated, bounded worker pool instead of the event loop.
+ * <p>
+ * At most {@code pool-size + queue-size} operations are accepted at a time, further requests fail fast
+ * with a 503 rather than queueing behind a login storm. Re-hashes after a cost change run on a separate,
+ * smaller pool so they never take capacity from logins, and are dropped when that pool is saturated.
+ * <p>
+ * New hashes use {@code password.hashing.cost} when set, otherwise the highest cost whose hash time measured at
+ * startup stays within {@code password.hashing.target-latency}. Calibration differs between nodes, so a
+ * cluster should pin the cost; either way, only hashes weaker than the current cost are ever re-hashed.
+ */
+@ApplicationScoped
+public class PasswordHasher {
+
+    static final long RETRY_AFTER_SECONDS = 1L;
+    static final int MAX_COST = 16;
+
+    private final WorkerExecutor executor;
+    private final int capacity;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final WorkerExecutor rehashExecutor;
+    private final int rehashCapacity;
+    private final AtomicInteger rehashPending = new AtomicInteger();
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+    private final OptionalInt configuredCost;
+    private final int minCost;
+    private final Duration targetLatency;
+    private final AtomicInteger cost = new AtomicInteger();
+
+    @Inject
+    public PasswordHasher(final Vertx vertx,
+                          final MeterRegistry registry,
+                          final @ConfigProperty(name = "password.hashing.pool-size", defaultValue = "4") int poolSize,
+                          final @ConfigProperty(name = "password.hashing.queue-size", defaultValue = "64") int queueSize,
+                          final @ConfigProperty(name = "password.hashing.rehash-pool-size", defaultValue = "1")
+                          int rehashPoolSize,
+                          final @ConfigProperty(name = "password.hashing.rehash-queue-size", defaultValue = "16")
+                          int rehashQueueSize,
+                          final @ConfigProperty(name = "password.hashing.cost") OptionalInt configuredCost,
+                          final @ConfigProperty(name = "password.hashing.min-cost", defaultValue = "10") int minCost,
+                          final @ConfigProperty(name = "password.hashing.target-latency", defaultValue = "PT0.1S")
+                          Duration targetLatency) {
+        this.executor = vertx.createSharedWorkerExecutor("password-hashing", poolSize);
+        this.capacity = poolSize + queueSize;
+        this.rehashExecutor = vertx.createSharedWorkerExecutor("password-rehashing", rehashPoolSize);
+        this.rehashCapacity = rehashPoolSize + rehashQueueSize;
+        registry.gauge("password.hashing.pending", pending);
+        this.hashTimer = Timer.builder("password.hashing.duration").tag("operation", "hash").register(registry);
+        this.verifyTimer = Timer.builder("password.hashing.duration").tag("operation", "verify").register(registry);
+        this.rejected = registry.counter("password.hashing.rejected");
+        this.configuredCost = configuredCost;
+        this.minCost = minCost;
+        this.targetLatency = targetLatency;
+        this.cost.set(configuredCost.orElse(minCost));
+        registry.gauge("password.hashing.cost", cost);
+    }
+
+    void calibrate(@Observes final StartupEvent event) {
+        if (configuredCost.isPresent()) {
+            Log.infof("Using configured bcrypt cost %d", cost.get());
+            return;
+        }
+        cost.set(calibrate(targetLatency, minCost));
+        Log.infof("Calibrated bcrypt cost %d for a target hash latency of %d ms", cost.get(), targetLatency.toMillis());
+    }
+
+    /**
+     * Highest cost, starting at {@code minCost}, whose estimated hash time fits into {@code target}. Each cost
+     * step doubles the work, so only the cheapest cost is measured.
+     */
+    static int calibrate(final Duration target, final int minCost) {
+        BcryptUtil.bcryptHash("calibration", minCost);
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            final long start = System.nanoTime();
+            BcryptUtil.bcryptHash("calibration", minCost);
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+        int calibrated = minCost;
+        while (calibrated < MAX_COST && nanos * 2 <= target.toNanos()) {
+            calibrated++;
+            nanos *= 2;
+        }
+        return calibrated;
+    }
+
+    /**
+     * Whether {@code hash} was made with a lower cost than new hashes get, read from its {@code $2a$NN$} prefix.
+     * Stronger hashes are kept, so nodes that calibrated differently do not re-hash each other's work.
+     */
+    public boolean needsRehash(final String hash) {
+        final String[] parts = hash.split("\\$");
+        try {
+            return parts.length < 3 || Integer.parseInt(parts[2]) < cost.get();
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        executor.closeAndForget();
+        rehashExecutor.closeAndForget();
+    }
+
+    public Uni<String> hash(final String password) {
+        final int current = cost.get();
+        return submit(executor, capacity, pending, hashTimer, () -> BcryptUtil.bcryptHash(password, current));
+    }
+
+    /**
+     * Like {@link #hash(String)}, on the background re-hashing pool. Emits {@code null} when that pool is
+     * saturated, the next login retries.
+     */
+    public Uni<String> rehash(final String password) {
+        final int current = cost.get();
+        return submit(rehashExecutor, rehashCapacity, rehashPending, hashTimer,
+                () -> BcryptUtil.bcryptHash(password, current))
+                .onFailure(ServiceUnavailableException.class).recoverWithNull();
+    }
+
+    public Uni<Boolean> matches(final String password, final String hash) {
+        return submit(executor, capacity, pending, verifyTimer, () -> BcryptUtil.matches(password, hash));
+    }
+
+    /**
+     * The result is emitted back on the caller's context, so reactive sessions can be used downstream.
+     */
+    private <T> Uni<T> submit(final WorkerExecutor executor, final int capacity, final AtomicInteger pending,
+                              final Timer timer, final Supplier<T> work) {
+        return Uni.createFrom().deferred(() -> {
+            if (pending.incrementAndGet() > capacity) {
+                pending.decrementAndGet();
+                rejected.increment();
+                return Uni.createFrom().failure(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+            }
+            return executor.executeBlocking(Uni.createFrom().item(() -> timer.record(work)), false)
+                    .eventually(pending::decrementAndGet);
+        });
+    }
+}
@@ -1,17 +1,21 @@
 package com.example.fullstack.user;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.hibernate.reactive.panache.PanacheEntity;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.ZonedDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "users")
+@SQLRestriction("deleted is null")
 public class User extends PanacheEntity {
-    @Column(unique = true, nullable = false)
+    // unique among users not deleted, a partial index created in import.sql
+    @Column(nullable = false)
     public String name;
 
     @Column(nullable = false)
@@ -24,6 +28,12 @@ public class User extends PanacheEntity {
     @Version
     public int version;
 
+    /**
+     * Set when the user is deleted, the row itself is removed once its purge has finished.
+     */
+    @JsonIgnore
+    public ZonedDateTime deleted;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles", joinColumns =
     @JoinColumn(name = "id"))
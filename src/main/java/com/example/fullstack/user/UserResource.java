@@ -1,20 +1,30 @@
 package com.example.fullstack.user;
 
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.MergePatch;
+import com.example.fullstack.purge.PurgeJobs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import org.jboss.resteasy.reactive.ResponseStatus;
 
 import java.util.List;
 
 @Path("/api/v1/users")
 @RolesAllowed("admin")
+@Timed(value = "rest.resource.requests", histogram = true)
 public class UserResource {
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
-    public UserResource(final UserService userService) {
+    public UserResource(final UserService userService, final ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
 
     @GET
@@ -43,6 +53,16 @@ public class UserResource {
         return userService.update(user);
     }
 
+    @PATCH
+    @Consumes({MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON})
+    @Path("{id}")
+    public Uni<User> patch(final @PathParam("id") long id,
+                           final @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                           final String body) {
+        return userService.patch(id, MergePatch.parse(objectMapper, body, UserService.PATCHABLE,
+                EntityTags.expectedVersion(ifMatch, id)));
+    }
+
     @PUT
     @Path("self/password")
     @RolesAllowed("user")
@@ -54,8 +74,8 @@ public class UserResource {
 
     @DELETE
     @Path("{id}")
-    public Uni<Void> delete(final @PathParam("id") long id) {
-        return userService.deleteById(id);
+    public Uni<Response> delete(final @PathParam("id") long id) {
+        return userService.deleteById(id).map(PurgeJobs::toResponse);
     }
 
     @GET
@@ -1,11 +1,18 @@
 package com.example.fullstack.user;
 
-import com.example.fullstack.project.Project;
-import com.example.fullstack.task.Task;
-import io.quarkus.elytron.security.common.BcryptUtil;
-import io.quarkus.hibernate.reactive.panache.common.WithSession;
-import io.quarkus.hibernate.reactive.panache.common.WithTransaction;
+import com.example.fullstack.Deadline;
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.MergePatch;
+import com.example.fullstack.Transactions;
+import com.example.fullstack.purge.PurgeJob;
+import com.example.fullstack.purge.PurgeService;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.logging.Log;
+import io.smallrye.common.vertx.VertxContext;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.Vertx;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.ClientErrorException;
@@ -13,16 +20,39 @@ import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.hibernate.ObjectNotFoundException;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 @ApplicationScoped
+@Deadline
 public class UserService {
 
+    public static final String CURRENT_USER_CACHE = "current-user";
+    static final Map<String, MergePatch.Field> PATCHABLE = Map.of(
+            "name", MergePatch.Field.text("name", false));
+
     private final JsonWebToken jsonWebToken;
+    private final Cache currentUserCache;
+    private final PasswordHasher passwordHasher;
+    private final PurgeService purgeService;
+    private final Transactions transactions;
+    private final Vertx vertx;
 
     @Inject
-    public UserService (final JsonWebToken jsonWebToken) {
+    public UserService (final JsonWebToken jsonWebToken,
+                        final @CacheName(CURRENT_USER_CACHE) Cache currentUserCache,
+                        final PasswordHasher passwordHasher,
+                        final PurgeService purgeService,
+                        final Transactions transactions,
+                        final Vertx vertx) {
         this.jsonWebToken = jsonWebToken;
+        this.currentUserCache = currentUserCache;
+        this.passwordHasher = passwordHasher;
+        this.purgeService = purgeService;
+        this.transactions = transactions;
+        this.vertx = vertx;
     }
 
     public Uni<User> findById(final long id) {
@@ -38,52 +68,164 @@ public class UserService {
         return User.listAll();
     }
 
-    @WithTransaction
     public Uni<User> create(final User user) {
-        user.password = BcryptUtil.bcryptHash(user.password);
-        return user.persistAndFlush();
+        // Hash before opening the transaction so no connection is held during bcrypt
+        return passwordHasher.hash(user.password)
+                .chain(hash -> {
+                    user.password = hash;
+                    return transactions.withTransaction(UserService.class, "create", () -> user.<User>persistAndFlush());
+                });
     }
 
-    @WithTransaction
+    /**
+     * Replaces the user. The cached current user is invalidated under the previous and the new name once the
+     * transaction has committed, a load racing the transaction would otherwise cache the old row again.
+     */
     public Uni<User> update(final User user) {
-        return findById(user.id)
-                .chain(u -> {
-                    user.setPassword(u.password);
-                    return User.getSession();
-                })
-                .chain(s -> s.merge(user));
+        final var previousName = new AtomicReference<String>();
+        return transactions.withTransaction(UserService.class, "update", () -> findById(user.id)
+                        .chain(u -> {
+                            previousName.set(u.name);
+                            user.setPassword(u.password);
+                            return User.getSession();
+                        })
+                        .chain(s -> s.merge(user)))
+                .call(() -> invalidateCurrentUser(previousName.get()))
+                .call(u -> invalidateCurrentUser(u.name));
     }
 
-    @WithTransaction
-    public Uni<User> changePassword(final String currentPassword, final String newPassword) {
-        return getCurrentUser().chain(u -> {
-            if (!matches(u, currentPassword)) {
-                throw new ClientErrorException("Current password does not match", Response.Status.CONFLICT);
+    /**
+     * Applies a merge patch with one {@code update} of the patched columns, conditional on the version when the
+     * patch carries one. A patch that changes nothing is not written and keeps the version. After the commit a
+     * rename drops every cached current user, the entry is keyed by the previous name.
+     */
+    public Uni<User> patch(final long id, final MergePatch patch) {
+        return transactions.withTransaction(UserService.class, "patch", () -> patchRow(id, patch)
+                        .chain(updated -> updated > 0 ? findById(id) : unchanged(id, patch.version())))
+                .call(u -> patch.contains("name") ? currentUserCache.invalidateAll() : invalidateCurrentUser(u.name));
+    }
+
+    /**
+     * Runs the patch's {@code update}, the number of rows it changed.
+     */
+    private static Uni<Integer> patchRow(final long id, final MergePatch patch) {
+        if (patch.isEmpty()) {
+            return Uni.createFrom().item(0);
+        }
+        return User.getSession()
+                .chain(s -> patch.bind(s, s.createMutationQuery("update User set " + patch.assignments()
+                                + " where id = :id and deleted is null" + patch.versionCondition()
+                                + patch.changeCondition()))
+                        .setParameter("id", id)
+                        .executeUpdate());
+    }
+
+    /**
+     * Reached when a patch changed nothing: reports 404 first, a user that is found fails the precondition when
+     * it has another version than the expected one and is returned as it is otherwise.
+     */
+    private Uni<User> unchanged(final long id, final Integer expectedVersion) {
+        return findById(id).map(user -> {
+            if (expectedVersion != null && user.version != expectedVersion) {
+                throw EntityTags.preconditionFailed();
             }
-            u.setPassword(BcryptUtil.bcryptHash(newPassword));
-            return u.persistAndFlush();
+            return user;
         });
     }
 
-    @WithTransaction
+    public Uni<User> changePassword(final String currentPassword, final String newPassword) {
+        // Loaded from the session rather than the cache, the entity is modified and merged back
+        return Panache.withSession(() -> findByName(jsonWebToken.getName()))
+                .call(u -> matches(u, currentPassword).invoke(matches -> {
+                    if (!matches) {
+                        throw new ClientErrorException("Current password does not match", Response.Status.CONFLICT);
+                    }
+                }))
+                .chain(u -> passwordHasher.hash(newPassword).chain(hash -> {
+                    u.setPassword(hash);
+                    return transactions.withTransaction(UserService.class, "changePassword",
+                            () -> User.getSession().chain(s -> s.merge(u)));
+                }))
+                .call(u -> invalidateCurrentUser(u.name));
+    }
+
     public Uni<Void> delete(final User user) {
-        return deleteById(user.id);
+        return deleteById(user.id).replaceWithVoid();
     }
 
-    @WithTransaction
-    public Uni<Void> deleteById(final long id) {
-        return findById(id)
-                .chain(u -> Uni.combine().all().unis(
-                        Task.delete("user.id", u.id),
-                        Project.delete("user.id", u.id)
-                ).asTuple().chain(t -> u.delete()));
+    /**
+     * Hides the user immediately and hands the removal of its tasks and projects to the {@link PurgeService}.
+     * The cached current user is dropped after the commit.
+     */
+    public Uni<PurgeJob> deleteById(final long id) {
+        final var name = new AtomicReference<String>();
+        return transactions.withTransaction(UserService.class, "deleteById", () -> findById(id)
+                        .invoke(u -> name.set(u.name))
+                        .invoke(u -> u.deleted = ZonedDateTime.now())
+                        .call(u -> u.persistAndFlush())
+                        .chain(u -> purgeService.start(PurgeJob.Type.USER, u.id)))
+                .call(() -> invalidateCurrentUser(name.get()));
     }
 
+    /**
+     * Returns the user of the current principal, served from the {@value CURRENT_USER_CACHE} cache when possible.
+     * <p>
+     * The returned instance is a detached snapshot shared between requests and must be treated as read-only,
+     * use {@link #findByName(String)} when the entity needs to be modified.
+     */
     public Uni<User> getCurrentUser() {
-        return findByName(jsonWebToken.getName());
+        return currentUserCache.getAsync(jsonWebToken.getName(),
+                name -> findByName(name).onItem().ifNotNull().transform(UserService::snapshot));
+    }
+
+    public String getCurrentUserName() {
+        return jsonWebToken.getName();
+    }
+
+    private Uni<Void> invalidateCurrentUser(final String name) {
+        return currentUserCache.invalidate(name);
+    }
+
+    /**
+     * Copies the loaded entity so the cached value holds no reference to the session that loaded it
+     * (the eager roles collection is a session-bound persistent bag).
+     */
+    private static User snapshot(final User user) {
+        final var copy = new User();
+        copy.id = user.id;
+        copy.name = user.name;
+        copy.password = user.password;
+        copy.created = user.created;
+        copy.version = user.version;
+        copy.roles = user.roles == null ? null : List.copyOf(user.roles);
+        return copy;
+    }
+
+    public Uni<Boolean> matches(final User user, final String password) {
+        return passwordHasher.matches(password, user.password);
     }
 
-    public static boolean matches(final User user, final String password) {
-        return BcryptUtil.matches(password, user.password);
+    /**
+     * Re-hashes a just verified password in the background when its stored hash has a lower bcrypt cost than
+     * the current one, on the hasher's background pool. The write only applies if the hash was not changed
+     * meanwhile. A re-hash skipped because that pool is saturated, or a failed one, is left for the next login.
+     */
+    public void rehashInBackground(final User user, final String password) {
+        final var previous = user.password;
+        if (!passwordHasher.needsRehash(previous)) {
+            return;
+        }
+        // A context of its own keeps the reactive session apart from the one still serving the login
+        final var current = Vertx.currentContext();
+        VertxContext.createNewDuplicatedContext(current != null ? current : vertx.getOrCreateContext())
+                .runOnContext(ignored -> passwordHasher.rehash(password)
+                        .onItem().ifNotNull().transformToUni(hash -> transactions.withTransaction(UserService.class,
+                                "rehash", () -> User.update("password = ?1 where id = ?2 and password = ?3",
+                                        hash, user.id, previous))
+                                .call(() -> invalidateCurrentUser(user.name)))
+                        .subscribe().with(
+                                updated -> Log.debugf("Re-hashed password of user %d: %s", user.id,
+                                        updated == null ? "skipped" : updated + " row(s)"),
+                                failure -> Log.warnf(failure, "Re-hashing password of user %d failed", user.id)));
     }
 }
@@ -15,4 +15,11 @@ VALUES (0, 'Work', 1, NOW(), 0)
     ON CONFLICT DO NOTHING;
 SELECT setval('users_SEQ', 1);
 
+ALTER TABLE task ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(title, '') || ' ' || coalesce(description, ''))) STORED;
+CREATE INDEX IF NOT EXISTS task_search_idx ON task USING gin (search_vector);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_name_key ON users (name) WHERE deleted IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS projects_user_name_key ON projects (user_id, name) WHERE deleted IS NULL;
+
 ALTER SEQUENCE IF EXISTS hibernate_sequence RESTART WITH 10;
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.fullstack;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.pgclient.PgException;
+import org.hibernate.HibernateException;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+class RestExceptionHandlerTest {
+
+    private final RestExceptionHandler handler = new RestExceptionHandler(new SimpleMeterRegistry());
+
+    private static HibernateException failed(final String sqlState) {
+        return new HibernateException("statement failed",
+                new PgException("statement failed", "ERROR", sqlState, null));
+    }
+
+    @Test
+    void cancelledStatementIsGatewayTimeout() {
+        // query_canceled, raised when statement_timeout cuts a statement off at the request's deadline
+        assertThat(handler.toResponse(failed("57014")).getStatus(), is(504));
+        assertThat(handler.toResponse(new DeadlineExceededException("late")).getStatus(), is(504));
+    }
+
+    @Test
+    void unavailableDatabaseIsRetriable() {
+        for (var sqlState : new String[]{"53300", "57P03", "55P03"}) {
+            var response = handler.toResponse(failed(sqlState));
+            assertThat(sqlState, response.getStatus(), is(503));
+            assertThat(sqlState, response.getHeaderString("Retry-After"), notNullValue());
+        }
+    }
+
+    @Test
+    void uniqueViolationIsConflict() {
+        assertThat(handler.toResponse(failed("23505")).getStatus(), is(409));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.fullstack;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import io.restassured.http.ContentType;
+import io.vertx.mutiny.pgclient.PgPool;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Coalescing as seen through the task list. The tag query every full list request starts with is kept waiting
+ * for a table lock, so the requests are known to overlap; the lock is released well within {@code lock_timeout}.
+ */
+@QuarkusTest
+class SingleFlightTest {
+
+    private static final String TASK_TAG = "^select count\\(.* from task ";
+    private static final int CALLERS = 10;
+
+    @Inject
+    PgPool pool;
+
+    @Inject
+    MeterRegistry registry;
+
+    @TestHTTPResource("/api/v1/tasks")
+    URI tasks;
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void concurrentListRequestsShareOneStatement() throws Exception {
+        final var etag = given()
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+        final var joined = calls("joined");
+        final var responses = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+        try (var sql = SqlStatements.capture()) {
+            var connection = pool.getConnection().await().indefinitely();
+            var transaction = connection.begin().await().indefinitely();
+            try {
+                connection.query("lock table task in access exclusive mode").execute().await().indefinitely();
+                for (int i = 0; i < CALLERS; i++) {
+                    responses.add(send(HttpRequest.newBuilder(tasks).header("If-None-Match", etag)));
+                }
+                awaitCalls("joined", joined + CALLERS - 1);
+            } finally {
+                transaction.rollback().await().indefinitely();
+                connection.close().await().indefinitely();
+            }
+            assertThat(statusCodes(responses), everyItem(is(304)));
+            assertThat(sql.matching(TASK_TAG), hasSize(1));
+        }
+    }
+
+    /**
+     * A write detaches the user's in-flight reads once committed: a list requested after it starts a query of
+     * its own rather than joining the one already waiting.
+     */
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void readAfterWriteStartsNewFlight() throws Exception {
+        final var started = calls("started");
+        final var responses = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+        try (var sql = SqlStatements.capture()) {
+            var connection = pool.getConnection().await().indefinitely();
+            var transaction = connection.begin().await().indefinitely();
+            try {
+                connection.query("lock table task in access exclusive mode").execute().await().indefinitely();
+                responses.add(send(HttpRequest.newBuilder(tasks)));
+                awaitCalls("started", started + 1);
+                given()
+                        .body("{\"name\":\"read-after-write\"}")
+                        .contentType(ContentType.JSON)
+                        .when().post("/api/v1/projects")
+                        .then()
+                        .statusCode(201);
+                responses.add(send(HttpRequest.newBuilder(tasks)));
+                awaitCalls("started", started + 2);
+            } finally {
+                transaction.rollback().await().indefinitely();
+                connection.close().await().indefinitely();
+            }
+            assertThat(statusCodes(responses), everyItem(is(200)));
+            assertThat(sql.matching(TASK_TAG), hasSize(2));
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<Void>> send(final HttpRequest.Builder request) {
+        return HttpClient.newHttpClient().sendAsync(request.build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static List<Integer> statusCodes(final List<CompletableFuture<HttpResponse<Void>>> responses)
+            throws Exception {
+        final var statusCodes = new ArrayList<Integer>();
+        for (var response : responses) {
+            statusCodes.add(response.get(5, TimeUnit.SECONDS).statusCode());
+        }
+        return statusCodes;
+    }
+
+    private double calls(final String outcome) {
+        return registry.counter("single-flight.calls", "outcome", outcome).count();
+    }
+
+    private void awaitCalls(final String outcome, final double expected) throws InterruptedException {
+        for (int i = 0; i < 20 && calls(outcome) < expected; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(calls(outcome), is(expected));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.fullstack;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the statements Hibernate logs to {@code org.hibernate.SQL} while open, so tests can count the round
+ * trips an endpoint makes. Requires {@code quarkus.hibernate-orm.log.sql}, which the test profile enables.
+ */
+public final class SqlStatements extends Handler implements AutoCloseable {
+
+    private static final Logger SQL = Logger.getLogger("org.hibernate.SQL");
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    private SqlStatements() {
+    }
+
+    public static SqlStatements capture() {
+        final var capture = new SqlStatements();
+        SQL.addHandler(capture);
+        return capture;
+    }
+
+    /**
+     * The captured statements containing a match of {@code regex}, ignoring unrelated background work such as
+     * the purge job.
+     */
+    public List<String> matching(final String regex) {
+        final var pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        return statements.stream().filter(sql -> pattern.matcher(sql).find()).toList();
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        // log.format-sql spreads statements over several lines
+        statements.add(record.getMessage().strip().replaceAll("\\s+", " "));
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        SQL.removeHandler(this);
+    }
+}
@@ -1,14 +1,30 @@
 package com.example.fullstack.auth;
 
 import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.vertx.RunOnVertxContext;
+import io.quarkus.test.vertx.UniAsserter;
 import io.restassured.http.ContentType;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+
 import static io.restassured.RestAssured.given;
 
 @QuarkusTest
 class AuthResourceTest {
+
+    @Inject
+    PgPool pool;
+
+    @Inject
+    RefreshTokenCleanup cleanup;
+
     @Test
     void loginValidCredentials() {
         given()
@@ -28,4 +44,84 @@ class AuthResourceTest {
                 .then()
                 .statusCode(401);
     }
-}
\ No newline at end of file
+
+    @Test
+    void repeatedTokenStaysVerified() {
+        final String token = given()
+                .body("{\"name\":\"admin\",\"password\":\"quarkus\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().asString();
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .auth().oauth2(token)
+                    .when().get("/api/v1/users/self")
+                    .then()
+                    .statusCode(200)
+                    .body("name", Matchers.is("admin"));
+        }
+        given()
+                .auth().oauth2(token.substring(0, token.length() - 2) + "xx")
+                .when().get("/api/v1/users/self")
+                .then()
+                .statusCode(401);
+    }
+
+    @Test
+    void refreshRotatesToken() {
+        final String refreshToken = given()
+                .body("{\"name\":\"user\",\"password\":\"quarkus\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/auth/login")
+                .then()
+                .statusCode(200)
+                .extract().cookie(AuthResource.REFRESH_COOKIE);
+        final String rotated = given()
+                .cookie(AuthResource.REFRESH_COOKIE, refreshToken)
+                .when().post("/api/v1/auth/refresh")
+                .then()
+                .statusCode(200)
+                .body(Matchers.not(Matchers.emptyString()))
+                .extract().cookie(AuthResource.REFRESH_COOKIE);
+        MatcherAssert.assertThat(rotated, Matchers.not(Matchers.is(refreshToken)));
+        // Replaying the rotated token revokes the whole family, its successor included
+        given()
+                .cookie(AuthResource.REFRESH_COOKIE, refreshToken)
+                .when().post("/api/v1/auth/refresh")
+                .then()
+                .statusCode(401);
+        given()
+                .cookie(AuthResource.REFRESH_COOKIE, rotated)
+                .when().post("/api/v1/auth/refresh")
+                .then()
+                .statusCode(401);
+    }
+
+    @Test
+    @RunOnVertxContext
+    void cleanUpKeepsRecentlyRevokedTokens(final UniAsserter asserter) {
+        asserter.execute(() -> insertToken(900001, "cleanup-expired", "now() - interval '1 day'", "null"));
+        asserter.execute(() -> insertToken(900002, "cleanup-revoked-long-ago", "now() + interval '1 day'",
+                "now() - interval '2 days'"));
+        asserter.execute(() -> insertToken(900003, "cleanup-revoked-now", "now() + interval '1 day'", "now()"));
+        asserter.execute(() -> insertToken(900004, "cleanup-valid", "now() + interval '1 day'", "null"));
+        asserter.execute(() -> cleanup.cleanUp());
+        asserter.assertThat(() -> pool.query("select token_hash from refresh_tokens "
+                                + "where token_hash like 'cleanup-%' order by token_hash").execute()
+                        .map(rows -> {
+                            final var hashes = new ArrayList<String>();
+                            rows.forEach(row -> hashes.add(row.getString(0)));
+                            return hashes;
+                        }),
+                hashes -> MatcherAssert.assertThat(hashes,
+                        Matchers.contains("cleanup-revoked-now", "cleanup-valid")));
+    }
+
+    private Uni<?> insertToken(final long id, final String hash, final String expires, final String revoked) {
+        return pool.preparedQuery("insert into refresh_tokens (id, token_hash, user_id, expires, revoked, created, version) "
+                        + "values ($1, $2, 0, " + expires + ", " + revoked + ", now(), 0)")
+                .execute(Tuple.of(id, hash));
+    }
+}
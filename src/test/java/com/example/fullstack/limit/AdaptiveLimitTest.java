@@ -0,0 +1,146 @@
+package com.example.fullstack.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static AdaptiveLimit limit(final int initial, final int min, final int max) {
+        return new AdaptiveLimit(new ConcurrencyLimitConfig.Limit() {
+            @Override
+            public int initial() {
+                return initial;
+            }
+
+            @Override
+            public int min() {
+                return min;
+            }
+
+            @Override
+            public int max() {
+                return max;
+            }
+
+            @Override
+            public double tolerance() {
+                return 1.5;
+            }
+
+            @Override
+            public double smoothing() {
+                return 0.2;
+            }
+        });
+    }
+
+    /**
+     * Fills the limit and then releases every permit after {@code rttNanos}, so most samples see it well used.
+     */
+    private static void saturate(final AdaptiveLimit limit, final long rttNanos, final int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.release(rttNanos, false);
+            }
+        }
+    }
+
+    @Test
+    void rejectsBeyondTheLimit() {
+        var limit = limit(3, 1, 10);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limit.tryAcquire(), is(true));
+        }
+        assertThat(limit.tryAcquire(), is(false));
+        assertThat(limit.inFlight(), is(3));
+    }
+
+    @Test
+    void growsUnderStableLatency() {
+        var limit = limit(20, 5, 200);
+        saturate(limit, FAST, 20);
+        assertThat(limit.limit(), greaterThan(20));
+        saturate(limit, FAST, 500);
+        assertThat(limit.limit(), is(200));
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        var limit = limit(20, 5, 200);
+        saturate(limit, FAST, 20);
+        var grown = limit.limit();
+        saturate(limit, SLOW, 5);
+        assertThat(limit.limit(), lessThan(grown));
+        saturate(limit, SLOW, 20);
+        assertThat(limit.limit(), lessThan(grown / 2));
+    }
+
+    @Test
+    void backsOffOnFailures() {
+        var limit = limit(20, 5, 200);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limit.tryAcquire(), is(true));
+            limit.release(FAST, true);
+        }
+        // 20 * 0.9^5
+        assertThat(limit.limit(), is(11));
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, true);
+        }
+        assertThat(limit.limit(), is(5));
+    }
+
+    @Test
+    void lowUtilisationDoesNotGrow() {
+        var limit = limit(20, 5, 200);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(limit.tryAcquire(), is(true));
+            limit.release(FAST, false);
+        }
+        assertThat(limit.limit(), is(20));
+    }
+
+    @Test
+    void concurrentReleasesKeepPermitsBalanced() throws InterruptedException {
+        var limit = limit(50, 10, 400);
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    if (limit.tryAcquire()) {
+                        limit.release(FAST, i % 100 == 0);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS), is(true));
+        assertThat(limit.inFlight(), is(0));
+        assertThat(limit.limit() >= 10 && limit.limit() <= 400, is(true));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.fullstack.limit;
+
+import com.example.fullstack.task.Task;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.restassured.http.ContentType;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@QuarkusTest
+@TestProfile(ConcurrencyLimitFilterTest.SinglePermit.class)
+class ConcurrencyLimitFilterTest {
+
+    /**
+     * One CRUD request at a time and no logins at all, so the test controls exactly when the limits are reached.
+     */
+    public static class SinglePermit implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "concurrency-limit.crud.initial", "1",
+                    "concurrency-limit.crud.min", "1",
+                    "concurrency-limit.crud.max", "1",
+                    "concurrency-limit.login.initial", "0",
+                    "concurrency-limit.login.min", "0",
+                    "concurrency-limit.login.max", "0",
+                    "concurrency-limit.retry-after", "PT2S"
+            );
+        }
+    }
+
+    @Inject
+    PgPool pool;
+
+    @TestHTTPResource("/")
+    URI base;
+
+    @Test
+    void rejectedLoginGets429() {
+        given()
+                .body("{\"name\":\"user\",\"password\":\"quarkus\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/auth/login")
+                .then()
+                .statusCode(429)
+                .header("Retry-After", "2");
+    }
+
+    /**
+     * An update waiting for a row lock holds the only CRUD permit: another request is shed with 503, and once
+     * the client of the waiting update hangs up its permit is back although the update itself still waits.
+     */
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void disconnectReleasesPermit() throws Exception {
+        var task = given()
+                .body("{\"title\":\"holds-the-permit\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        var connection = pool.getConnection().await().indefinitely();
+        var transaction = connection.begin().await().indefinitely();
+        try {
+            connection.preparedQuery("select id from task where id = $1 for update")
+                    .execute(Tuple.of(task.id))
+                    .await().indefinitely();
+            try (var client = new Socket(base.getHost(), base.getPort())) {
+                var body = "{\"id\":" + task.id + ",\"title\":\"blocked\",\"version\":" + task.version + "}";
+                OutputStream out = client.getOutputStream();
+                out.write(("PUT /api/v1/tasks/" + task.id + " HTTP/1.1\r\n"
+                        + "Host: " + base.getHost() + "\r\n"
+                        + "Content-Type: application/json\r\n"
+                        + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                        + "\r\n" + body).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(300);
+                given()
+                        .when().get("/api/v1/tasks")
+                        .then()
+                        .statusCode(503)
+                        .header("Retry-After", "2");
+            }
+            // the update still waits for the lock, only its client is gone
+            int status = 0;
+            for (int i = 0; i < 10 && status != 200; i++) {
+                Thread.sleep(50);
+                status = given().when().get("/api/v1/tasks").then().extract().statusCode();
+            }
+            assertThat(status, is(200));
+        } finally {
+            transaction.rollback().await().indefinitely();
+            connection.close().await().indefinitely();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.fullstack.logging;
+
+import org.jboss.logmanager.ExtLogRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AsyncLogHandlerTest {
+
+    private static final class Collecting extends Handler {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(final LogRecord record) {
+            messages.add(record.getMessage());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class Counting implements AsyncLogHandler.Listener {
+        final AtomicInteger dropped = new AtomicInteger();
+        final AtomicInteger blocked = new AtomicInteger();
+        final AtomicInteger sampledOut = new AtomicInteger();
+
+        @Override
+        public void dropped() {
+            dropped.incrementAndGet();
+        }
+
+        @Override
+        public void blocked() {
+            blocked.incrementAndGet();
+        }
+
+        @Override
+        public void sampledOut(final String category) {
+            sampledOut.incrementAndGet();
+        }
+    }
+
+    private static ExtLogRecord record(final String category, final String message) {
+        return new ExtLogRecord(Level.INFO, message, ExtLogRecord.FormatStyle.NO_FORMAT, category);
+    }
+
+    private static List<String> messages(final int count) {
+        return IntStream.range(0, count).mapToObj(i -> "message-" + i).toList();
+    }
+
+    @Test
+    void closeDrainsEverythingQueued() {
+        var delegate = new Collecting();
+        var handler = new AsyncLogHandler(List.of(delegate), 1024, AsyncLogHandler.Overflow.BLOCK, Map.of(),
+                new Counting());
+        messages(1000).forEach(m -> handler.publish(record("test", m)));
+        handler.close();
+        assertThat(delegate.messages, contains(messages(1000).toArray()));
+        handler.publish(record("test", "after-close"));
+        assertThat(delegate.messages.size(), is(1000));
+    }
+
+    @Test
+    void blockWaitsForTheWriterWhenFull() {
+        var delegate = new Collecting() {
+            @Override
+            public void publish(final LogRecord record) {
+                super.publish(record);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        var listener = new Counting();
+        var handler = new AsyncLogHandler(List.of(delegate), 2, AsyncLogHandler.Overflow.BLOCK, Map.of(), listener);
+        messages(50).forEach(m -> handler.publish(record("test", m)));
+        handler.close();
+        assertThat(delegate.messages, contains(messages(50).toArray()));
+        assertThat(listener.dropped.get(), is(0));
+        assertThat(listener.blocked.get(), greaterThan(0));
+    }
+
+    @Test
+    void dropLosesOnlyWhatDidNotFit() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var delegate = new Collecting() {
+            @Override
+            public void publish(final LogRecord record) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.publish(record);
+            }
+        };
+        var listener = new Counting();
+        var handler = new AsyncLogHandler(List.of(delegate), 4, AsyncLogHandler.Overflow.DROP, Map.of(), listener);
+        messages(20).forEach(m -> handler.publish(record("test", m)));
+        release.countDown();
+        handler.close();
+        // The writer may have taken one record out before it stalled, the rest of the 20 beyond the buffer are lost
+        assertThat(delegate.messages.size() + listener.dropped.get(), is(20));
+        assertThat(listener.dropped.get(), greaterThan(0));
+        assertThat(delegate.messages, contains(messages(delegate.messages.size()).toArray()));
+    }
+
+    @Test
+    void writerLoggingIntoAFullBufferDoesNotDeadlock() {
+        var listener = new Counting();
+        var handler = new AsyncLogHandler[1];
+        var delegate = new Collecting() {
+            @Override
+            public void publish(final LogRecord record) {
+                super.publish(record);
+                // A delegate that logs itself, e.g. an error report, lands back in this handler on the writer thread
+                if (record.getMessage().startsWith("message-")) {
+                    for (int i = 0; i < 8; i++) {
+                        handler[0].publish(record("nested", "nested"));
+                    }
+                }
+            }
+        };
+        handler[0] = new AsyncLogHandler(List.of(delegate), 2, AsyncLogHandler.Overflow.BLOCK, Map.of(), listener);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            messages(20).forEach(m -> handler[0].publish(record("test", m)));
+            handler[0].close();
+        });
+        assertThat(listener.dropped.get(), greaterThan(0));
+    }
+
+    @Test
+    void samplingKeepsConfiguredShareOfCategoryAndChildren() {
+        var delegate = new Collecting();
+        var listener = new Counting();
+        var handler = new AsyncLogHandler(List.of(delegate), 1024, AsyncLogHandler.Overflow.BLOCK,
+                Map.of("sampled", 0.0), listener);
+        handler.publish(record("sampled", "dropped"));
+        handler.publish(record("sampled.child", "dropped"));
+        handler.publish(record("other", "kept"));
+        handler.close();
+        assertThat(delegate.messages, contains("kept"));
+        assertThat(listener.sampledOut.get(), is(2));
+        assertThat(delegate.messages.stream().filter("dropped"::equals).toList(), empty());
+    }
+}
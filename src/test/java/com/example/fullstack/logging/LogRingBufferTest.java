@@ -0,0 +1,108 @@
+package com.example.fullstack.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogRingBufferTest {
+
+    @Test
+    void rejectsCapacityThatIsNoPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new LogRingBuffer<>(6));
+        assertThrows(IllegalArgumentException.class, () -> new LogRingBuffer<>(1));
+    }
+
+    @Test
+    void wrapsAroundInOrder() {
+        var buffer = new LogRingBuffer<Integer>(4);
+        int next = 0;
+        int expected = 0;
+        // Three elements per round never line up with the four slots, so every slot is reused at every offset
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(next++), is(true));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.poll(), is(expected++));
+            }
+            assertThat(buffer.poll(), nullValue());
+        }
+        assertThat(buffer.size(), is(0));
+    }
+
+    @Test
+    void refusesWhenFull() {
+        var buffer = new LogRingBuffer<Integer>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i), is(true));
+        }
+        assertThat(buffer.offer(4), is(false));
+        assertThat(buffer.size(), is(4));
+        assertThat(buffer.poll(), is(0));
+        assertThat(buffer.offer(4), is(true));
+        for (int i = 1; i <= 4; i++) {
+            assertThat(buffer.poll(), is(i));
+        }
+        assertThat(buffer.poll(), nullValue());
+    }
+
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 100_000;
+        var buffer = new LogRingBuffer<Long>(64);
+        var start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            final long producer = p;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(producer * perProducer + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        start.countDown();
+
+        var seen = new boolean[producers * perProducer];
+        var last = new long[producers];
+        Arrays.fill(last, -1);
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < seen.length && System.nanoTime() < deadline) {
+            var element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int value = element.intValue();
+            assertThat("duplicate " + value, seen[value], is(false));
+            seen[value] = true;
+            int producer = value / perProducer;
+            // elements of one producer keep their order
+            assertThat(value > last[producer], is(true));
+            last[producer] = value;
+            received++;
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(5, TimeUnit.SECONDS), is(true));
+        assertThat(received, is(seen.length));
+        assertThat(buffer.poll(), nullValue());
+    }
+}
@@ -8,6 +8,8 @@ import io.quarkus.test.vertx.RunOnVertxContext;
 import io.quarkus.test.vertx.UniAsserter;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.vertx.mutiny.pgclient.PgPool;
+import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -26,6 +28,69 @@ import static org.hamcrest.Matchers.nullValue;
 @QuarkusTest
 class ProjectResourceTest {
 
+    @Inject
+    PgPool pool;
+
+    /**
+     * The statistics are a session read; their statement gets a local statement_timeout too and is cancelled
+     * by PostgreSQL while it still waits for the table lock held by another connection.
+     */
+    @Test
+    @TestSecurity(user = "admin", roles = "user")
+    void statsCancelledAtDeadline() throws InterruptedException {
+        // creating a project drops any memoised statistics of the user
+        given().body("{\"name\":\"stats-at-deadline\"}").contentType(ContentType.JSON)
+                .post("/api/v1/projects")
+                .then()
+                .statusCode(201);
+        var connection = pool.getConnection().await().indefinitely();
+        var transaction = connection.begin().await().indefinitely();
+        try {
+            connection.query("lock table projects in access exclusive mode").execute().await().indefinitely();
+            given()
+                    .header("X-Request-Timeout", "300")
+                    .when().get("/api/v1/projects/stats")
+                    .then()
+                    .statusCode(504);
+            long waiting = lockWaiters();
+            for (int i = 0; i < 10 && waiting > 0; i++) {
+                Thread.sleep(100);
+                waiting = lockWaiters();
+            }
+            assertThat(waiting, is(0L));
+        } finally {
+            transaction.rollback().await().indefinitely();
+            connection.close().await().indefinitely();
+        }
+    }
+
+    private long lockWaiters() {
+        return pool.query("select count(*) from pg_stat_activity where wait_event_type = 'Lock'")
+                .execute().await().indefinitely()
+                .iterator().next().getLong(0);
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void stats() {
+        var project = given().body("{\"name\":\"with-stats\"}").contentType(ContentType.JSON)
+                .post("/api/v1/projects").as(Project.class);
+        for (var task : new String[]{
+                "{\"title\":\"done\",\"complete\":\"2024-01-01T00:00:00Z\",\"project\":{\"id\":" + project.id + "}}",
+                "{\"title\":\"late\",\"due\":\"2024-01-01T00:00:00Z\",\"project\":{\"id\":" + project.id + "}}",
+                "{\"title\":\"open\",\"project\":{\"id\":" + project.id + "}}"}) {
+            given().body(task).contentType(ContentType.JSON).post("/api/v1/tasks");
+        }
+        given()
+                .when().get("/api/v1/projects/stats")
+                .then()
+                .statusCode(200)
+                .body("find { it.name == 'with-stats' }.open", is(2),
+                        "find { it.name == 'with-stats' }.completed", is(1),
+                        "find { it.name == 'with-stats' }.overdue", is(1),
+                        "find { it.name == 'with-stats' }.lastActivity", not(nullValue()));
+    }
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     void list() {
@@ -40,6 +105,22 @@ class ProjectResourceTest {
                 );
     }
 
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void getNotModified() {
+        var etag = given()
+                .when().get("/api/v1/projects/0")
+                .then()
+                .statusCode(200)
+                .body("name", is("Work"))
+                .extract().header("ETag");
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/v1/projects/0")
+                .then()
+                .statusCode(304);
+    }
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     void create() {
@@ -152,6 +233,10 @@ class ProjectResourceTest {
                 .when().delete("/api/v1/projects/" + toDelete.id)
                 .then()
                 .statusCode(204);
+        given()
+                .when().get("/api/v1/projects/" + toDelete.id)
+                .then()
+                .statusCode(404);
 
         uniAsserter.assertThat(
                 () -> Panache.withSession(() -> Task.<Task>findById(dependentTask.id))
@@ -0,0 +1,187 @@
+package com.example.fullstack.purge;
+
+import com.example.fullstack.project.Project;
+import com.example.fullstack.user.User;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.restassured.http.ContentType;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@QuarkusTest
+@TestProfile(PurgeResourceTest.SmallChunks.class)
+class PurgeResourceTest {
+
+    /**
+     * One row per chunk, so any target with dependents outlives the deleting request.
+     */
+    public static class SmallChunks implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "purge.chunk-size", "1",
+                    "purge.interval", "200ms"
+            );
+        }
+    }
+
+    @Inject
+    PgPool pool;
+
+    @Test
+    @TestSecurity(user = "admin", roles = "admin")
+    void purgeUser() throws InterruptedException {
+        var toPurge = given()
+                .body("{\"name\":\"to-purge\",\"password\":\"test\",\"roles\":[\"user\"]}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/users").as(User.class);
+        insertTask(100_000, toPurge.id);
+        insertTask(100_001, toPurge.id);
+
+        long jobId = given()
+                .when().delete("/api/v1/users/" + toPurge.id)
+                .then()
+                .statusCode(202)
+                .header("Location", containsString("/api/v1/purges/"))
+                .body(
+                        "type", is("USER"),
+                        "targetId", is(toPurge.id.intValue()),
+                        "completed", nullValue())
+                .extract().jsonPath().getLong("id");
+
+        // the soft-deleted row no longer holds on to its name
+        given()
+                .body("{\"name\":\"to-purge\",\"password\":\"test\",\"roles\":[\"user\"]}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/users")
+                .then()
+                .statusCode(201);
+
+        awaitCompleted(jobId);
+        assertThat(count("select count(*) from users where id = $1", toPurge.id), is(0L));
+        assertThat(count("select count(*) from task where user_id = $1", toPurge.id), is(0L));
+    }
+
+    @Test
+    @TestSecurity(user = "admin", roles = "admin")
+    void deletedProjectNameCanBeReused() {
+        var project = given()
+                .body("{\"name\":\"to-reuse\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/projects").as(Project.class);
+        for (var title : new String[]{"reuse-1", "reuse-2"}) {
+            given()
+                    .body("{\"title\":\"" + title + "\",\"project\":{\"id\":" + project.id + "}}")
+                    .contentType(ContentType.JSON)
+                    .post("/api/v1/tasks")
+                    .then()
+                    .statusCode(201);
+        }
+        given()
+                .when().delete("/api/v1/projects/" + project.id)
+                .then()
+                .statusCode(202)
+                .header("Location", notNullValue());
+        given()
+                .body("{\"name\":\"to-reuse\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/projects")
+                .then()
+                .statusCode(201);
+    }
+
+    @Test
+    @TestSecurity(user = "admin", roles = "admin")
+    void resumesJobLeftByRestart() throws InterruptedException {
+        var project = given()
+                .body("{\"name\":\"interrupted\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/projects").as(Project.class);
+        insertTask(100_010, 0L, project.id);
+        // what a crash right after the deleting transaction leaves behind
+        pool.preparedQuery("update projects set deleted = now() where id = $1")
+                .execute(Tuple.of(project.id)).await().indefinitely();
+        pool.preparedQuery("insert into purge_jobs (id, type, target_id, requested_by, purged, created, version) "
+                        + "values ($1, 'PROJECT', $2, 'admin', 0, now(), 0)")
+                .execute(Tuple.of(100_000L, project.id)).await().indefinitely();
+
+        awaitCompleted(100_000L);
+        assertThat(count("select count(*) from projects where id = $1", project.id), is(0L));
+        assertThat(count("select count(*) from task where id = 100010 and project_id is null", null), is(1L));
+    }
+
+    /**
+     * Thirty chunks at one per scheduler interval would take six seconds; a run keeps going until the job is done.
+     */
+    @Test
+    @TestSecurity(user = "admin", roles = "admin")
+    void runPurgesManyChunks() throws InterruptedException {
+        var project = given()
+                .body("{\"name\":\"many-chunks\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/projects").as(Project.class);
+        for (long id = 100_020; id < 100_050; id++) {
+            insertTask(id, 0L, project.id);
+        }
+
+        long jobId = given()
+                .when().delete("/api/v1/projects/" + project.id)
+                .then()
+                .statusCode(202)
+                .extract().jsonPath().getLong("id");
+
+        awaitCompleted(jobId, 30);
+        assertThat(count("select count(*) from task where id between 100020 and 100049 and project_id is null", null),
+                is(30L));
+    }
+
+    private void awaitCompleted(long jobId) throws InterruptedException {
+        awaitCompleted(jobId, 100);
+    }
+
+    private void awaitCompleted(long jobId, int attempts) throws InterruptedException {
+        for (int i = 0; i < attempts; i++) {
+            var completed = given()
+                    .when().get("/api/v1/purges/" + jobId)
+                    .then()
+                    .statusCode(200)
+                    .extract().jsonPath().getString("completed");
+            if (completed != null) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Purge job " + jobId + " did not complete");
+    }
+
+    private void insertTask(long id, long userId) {
+        insertTask(id, userId, null);
+    }
+
+    private void insertTask(long id, long userId, Long projectId) {
+        pool.preparedQuery("insert into task (id, title, user_id, project_id, created, version) "
+                        + "values ($1, $2, $3, $4, now(), 0)")
+                .execute(Tuple.of(id, "purge-" + id, userId, projectId))
+                .await().indefinitely();
+    }
+
+    private long count(String sql, Long parameter) {
+        var rows = parameter == null
+                ? pool.query(sql).execute()
+                : pool.preparedQuery(sql).execute(Tuple.of(parameter));
+        return rows.await().indefinitely().iterator().next().getLong(0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.fullstack.task;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.restassured.http.ContentType;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+@QuarkusTest
+@TestProfile(TaskCompleteRetryTest.ShortLockTimeout.class)
+class TaskCompleteRetryTest {
+
+    public static class ShortLockTimeout implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.datasource.reactive.additional-properties.lock_timeout", "100ms",
+                    "task.complete.retry.max-attempts", "3"
+            );
+        }
+    }
+
+    @Inject
+    PgPool pool;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void retriesWhileRowIsLocked() {
+        var task = create("locked-briefly");
+        var attempts = attempts();
+        // released after the first attempt timed out, before the retries run out
+        var release = lock(task.id, Duration.ofMillis(250));
+        given()
+                .body("\"true\"")
+                .contentType(ContentType.JSON)
+                .when().put("/api/v1/tasks/" + task.id + "/complete")
+                .then()
+                .statusCode(200);
+        release.join();
+        assertThat(attempts() - attempts, greaterThanOrEqualTo(2.0));
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void givesUpWhenRowStaysLocked() {
+        var task = create("locked-for-long");
+        var attempts = attempts();
+        var release = lock(task.id, Duration.ofSeconds(3));
+        given()
+                .body("\"true\"")
+                .contentType(ContentType.JSON)
+                .when().put("/api/v1/tasks/" + task.id + "/complete")
+                .then()
+                .statusCode(503)
+                .header("Retry-After", notNullValue());
+        release.join();
+        assertThat(attempts() - attempts, is(4.0));
+    }
+
+    private static Task create(String title) {
+        return given()
+                .body("{\"title\":\"" + title + "\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+    }
+
+    private double attempts() {
+        var timer = registry.find("hibernate.reactive.transaction")
+                .tag("class", TaskService.class.getSimpleName())
+                .tag("method", "setComplete")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    /**
+     * Locks the task row from a separate connection and rolls back after {@code duration}.
+     */
+    private CompletableFuture<Void> lock(long id, Duration duration) {
+        var connection = pool.getConnection().await().indefinitely();
+        var transaction = connection.begin().await().indefinitely();
+        connection.preparedQuery("select id from task where id = $1 for update")
+                .execute(Tuple.of(id))
+                .await().indefinitely();
+        return Uni.createFrom().voidItem()
+                .onItem().delayIt().by(duration)
+                .chain(transaction::rollback)
+                .eventually(connection::close)
+                .subscribeAsCompletionStage();
+    }
+}
@@ -1,33 +1,61 @@
 package com.example.fullstack.task;
 
+import com.example.fullstack.SqlStatements;
+import com.example.fullstack.project.Project;
 import com.example.fullstack.user.User;
 import io.quarkus.hibernate.reactive.panache.Panache;
+import io.quarkus.test.common.http.TestHTTPResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.security.TestSecurity;
 import io.quarkus.test.vertx.RunOnVertxContext;
 import io.quarkus.test.vertx.UniAsserter;
 import io.restassured.http.ContentType;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.core.Response;
 import org.hamcrest.Matcher;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 
 @QuarkusTest
 class TaskResourceTest {
 
+    @Inject
+    PgPool pool;
+
+    @TestHTTPResource("/api/v1/tasks/stream")
+    URI taskStream;
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     void list() {
@@ -51,6 +79,180 @@ class TaskResourceTest {
                 );
     }
 
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void listPaginated() {
+        for (var title : new String[]{"to-be-paged-1", "to-be-paged-2"}) {
+            given()
+                    .body("{\"title\":\"" + title + "\"}")
+                    .contentType(ContentType.JSON)
+                    .post("/api/v1/tasks");
+        }
+        var firstPage = given()
+                .queryParam("limit", 1)
+                .when().get("/api/v1/tasks");
+        firstPage.then()
+                .statusCode(200)
+                .body("$.size()", is(1));
+        given()
+                .when().get(firstPage.getHeader("Link").replaceAll("^<(.*)>.*$", "$1"))
+                .then()
+                .statusCode(200)
+                .body("$.size()", is(1),
+                        "[0].id", not(is(firstPage.path("[0].id"))));
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void search() {
+        given()
+                .body("{\"title\":\"Feed the quokkas\",\"description\":\"twice a day\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks");
+        given()
+                .body("{\"title\":\"Walk the dog\",\"description\":\"quokka enclosure first\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks");
+        given()
+                .queryParam("q", "quokka")
+                .when().get("/api/v1/tasks/search")
+                .then()
+                .statusCode(200)
+                .body("title", hasItems("Feed the quokkas", "Walk the dog"));
+        given()
+                .queryParam("q", "quokka feed")
+                .queryParam("limit", 1)
+                .when().get("/api/v1/tasks/search")
+                .then()
+                .statusCode(200)
+                .header("Link", containsString("offset=1"))
+                .body("title", contains("Feed the quokkas"));
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void listFiltered() {
+        given()
+                .body("{\"title\":\"filtered-important\",\"priority\":5,\"project\":{\"id\":0}}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks");
+        given()
+                .body("{\"title\":\"filtered-minor\",\"priority\":1,\"project\":{\"id\":0}}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks");
+        given()
+                .queryParam("projectId", 0)
+                .queryParam("complete", false)
+                .queryParam("minPriority", 3)
+                .queryParam("sort", "-priority")
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(200)
+                .body("title", allOf(hasItem("filtered-important"), not(hasItem("filtered-minor"))),
+                        "priority", everyItem(greaterThanOrEqualTo(3)));
+        given()
+                .queryParam("sort", "-priority")
+                .queryParam("limit", 1)
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(400);
+    }
+
+    private record FilterPlan(String query, String index, Object... parameters) {
+    }
+
+    /**
+     * Every filter of the task list must be answerable from its index of the task table. The statement
+     * Hibernate generates for the request is captured and explained with the same parameters; sequential scans
+     * are disabled for it, the small test tables would otherwise never justify an index.
+     */
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void filtersUseIndexes() {
+        // UTC renders as Z, an offset's + would need escaping in the query string
+        var before = OffsetDateTime.now(ZoneOffset.UTC);
+        var after = before.minusDays(1);
+        for (var filter : List.of(
+                new FilterPlan("", "task_user_created_id_idx"),
+                new FilterPlan("projectId=0", "task_user_project_idx", 0L),
+                new FilterPlan("complete=false", "task_user_complete_priority_idx"),
+                new FilterPlan("complete=true&minPriority=3", "task_user_complete_priority_idx", 3),
+                new FilterPlan("complete=false&minPriority=3", "task_user_complete_priority_idx", 3),
+                new FilterPlan("projectId=0&complete=false", "task_user_project_idx", 0L),
+                new FilterPlan("createdAfter=" + after + "&createdBefore=" + before, "task_user_created_id_idx",
+                        after, before))) {
+            String sql;
+            try (var statements = SqlStatements.capture()) {
+                given()
+                        .when().get("/api/v1/tasks?" + filter.query())
+                        .then()
+                        .statusCode(200);
+                sql = statements.matching("from task \\w+ .*order by").get(0);
+            }
+            var parameters = Tuple.of("user");
+            for (var parameter : filter.parameters()) {
+                parameters.addValue(parameter);
+            }
+            var plan = pool.withTransaction(connection -> connection.query("set local enable_seqscan = off").execute()
+                            .chain(() -> connection.preparedQuery("explain " + sql).execute(parameters)))
+                    .await().indefinitely();
+            var lines = new ArrayList<String>();
+            plan.forEach(row -> lines.add(row.getString(0)));
+            assertThat(filter.query() + "\n" + sql, String.join("\n", lines),
+                    containsString(" using " + filter.index() + " "));
+        }
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void listNotModified() {
+        var etag = given()
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(304);
+        given()
+                .body("{\"title\":\"changes-list-etag\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks");
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(is(etag)));
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void listInvalidCursor() {
+        given()
+                .queryParam("next", "not-a-cursor")
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void export() {
+        given()
+                .body("{\"title\":\"to-be-exported\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks");
+        given()
+                .when().get("/api/v1/tasks/export")
+                .then()
+                .statusCode(200)
+                .contentType(containsString("application/x-ndjson"))
+                .body(containsString("\"title\":\"to-be-exported\""));
+    }
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     void create() {
@@ -66,6 +268,71 @@ class TaskResourceTest {
                 );
     }
 
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void batch() {
+        var toComplete = given()
+                .body("{\"title\":\"to-complete-in-batch\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        given()
+                .body("{\"create\":[{\"title\":\"batch-1\"},{\"title\":\"batch-2\"}],"
+                        + "\"complete\":[{\"id\":" + toComplete.id + ",\"complete\":true}],"
+                        + "\"delete\":[1337]}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks/batch")
+                .then()
+                .statusCode(200)
+                .body(
+                        "status", contains(201, 201, 200, 404),
+                        "[2].version", is(toComplete.version + 1)
+                );
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void batchRejectsUnknownProjectPerItem() {
+        var project = given()
+                .body("{\"name\":\"batch-project\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/projects").as(Project.class);
+        var toUpdate = given()
+                .body("{\"title\":\"to-update-in-batch\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        given()
+                .body("{\"create\":[{\"title\":\"batch-own-project\",\"project\":{\"id\":" + project.id + "}},"
+                        + "{\"title\":\"batch-foreign-project\",\"project\":{\"id\":1337}}],"
+                        + "\"update\":[{\"id\":" + toUpdate.id + ",\"version\":" + toUpdate.version
+                        + ",\"title\":\"moved\",\"project\":{\"id\":1337}}]}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks/batch")
+                .then()
+                .statusCode(200)
+                .body(
+                        "status", contains(201, 400, 400),
+                        "[2].id", is(toUpdate.id.intValue())
+                );
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void batchRejectsInvalidItemsPerItem() {
+        given()
+                .body("{\"create\":[null,{\"description\":\"no title\"},{\"title\":\"batch-valid\"}],"
+                        + "\"update\":[null,{\"title\":\"no id\"}],"
+                        + "\"complete\":[null],"
+                        + "\"delete\":[null]}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks/batch")
+                .then()
+                .statusCode(200)
+                .body(
+                        "status", contains(400, 400, 201, 400, 400, 400, 400),
+                        "operation", contains("CREATE", "CREATE", "CREATE", "UPDATE", "UPDATE", "COMPLETE", "DELETE")
+                );
+    }
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     void update() {
@@ -86,6 +353,143 @@ class TaskResourceTest {
                 );
     }
 
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void updateIfMatch() {
+        var toUpdate = given()
+                .body("{\"title\":\"to-update-if-match\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        toUpdate.title = "updated-if-match";
+        given()
+                .body(toUpdate)
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"" + toUpdate.id + "-" + toUpdate.version + "\"")
+                .when().put("/api/v1/tasks/" + toUpdate.id)
+                .then()
+                .statusCode(200)
+                .header("ETag", "\"" + toUpdate.id + "-" + (toUpdate.version + 1) + "\"")
+                .body("title", is("updated-if-match"));
+        given()
+                .body(toUpdate)
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"" + toUpdate.id + "-" + toUpdate.version + "\"")
+                .when().put("/api/v1/tasks/" + toUpdate.id)
+                .then()
+                .statusCode(412);
+        given()
+                .body(toUpdate)
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"1337-0\"")
+                .when().put("/api/v1/tasks/1337")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void foreignProjectRejected() {
+        final var foreign = foreignProject();
+        given()
+                .body("{\"title\":\"into-foreign-project\",\"project\":{\"id\":" + foreign + "}}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks")
+                .then()
+                .statusCode(401);
+        var task = given()
+                .body("{\"title\":\"stays-out-of-foreign-project\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        task.project = new Project();
+        task.project.id = foreign;
+        given()
+                .body(task)
+                .contentType(ContentType.JSON)
+                .when().put("/api/v1/tasks/" + task.id)
+                .then()
+                .statusCode(401);
+        given()
+                .body(task)
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"" + task.id + "-" + task.version + "\"")
+                .when().put("/api/v1/tasks/" + task.id)
+                .then()
+                .statusCode(401);
+        given()
+                .body("{\"project\":{\"id\":" + foreign + "}}")
+                .contentType("application/merge-patch+json")
+                .when().patch("/api/v1/tasks/" + task.id)
+                .then()
+                .statusCode(401);
+        task.project.id = 1337L;
+        given()
+                .body(task)
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"" + task.id + "-" + task.version + "\"")
+                .when().put("/api/v1/tasks/" + task.id)
+                .then()
+                .statusCode(404);
+        given()
+                .when().get("/api/v1/tasks/" + task.id)
+                .then()
+                .statusCode(200)
+                .body("version", is(task.version), "project", nullValue());
+    }
+
+    /**
+     * A project of the admin, inserted directly as the test user cannot create one for someone else.
+     */
+    private long foreignProject() {
+        pool.query("insert into projects (id, name, user_id, created, version) "
+                        + "values (900000, 'foreign-project', 0, now(), 0) on conflict do nothing")
+                .execute().await().indefinitely();
+        return 900000L;
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void patch() {
+        var toPatch = given()
+                .body("{\"title\":\"to-patch\",\"description\":\"kept\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        given()
+                .body("{\"priority\":3,\"version\":" + toPatch.version + "}")
+                .contentType("application/merge-patch+json")
+                .when().patch("/api/v1/tasks/" + toPatch.id)
+                .then()
+                .statusCode(200)
+                .body(
+                        "title", is("to-patch"),
+                        "description", is("kept"),
+                        "priority", is(3),
+                        "version", is(toPatch.version + 1)
+                );
+        given()
+                .body("{\"priority\":4,\"version\":" + toPatch.version + "}")
+                .contentType("application/merge-patch+json")
+                .when().patch("/api/v1/tasks/" + toPatch.id)
+                .then()
+                .statusCode(412);
+        // Patches changing nothing leave the version, and with it every client's ETag, alone
+        for (var unchanged : List.of("{}", "{\"priority\":3}", "{\"description\":\"kept\"}")) {
+            given()
+                    .body(unchanged)
+                    .contentType("application/merge-patch+json")
+                    .when().patch("/api/v1/tasks/" + toPatch.id)
+                    .then()
+                    .statusCode(200)
+                    .header("ETag", "\"" + toPatch.id + "-" + (toPatch.version + 1) + "\"")
+                    .body("priority", is(3), "version", is(toPatch.version + 1));
+        }
+        given()
+                .body("{\"user\":{\"id\":0}}")
+                .contentType("application/merge-patch+json")
+                .when().patch("/api/v1/tasks/" + toPatch.id)
+                .then()
+                .statusCode(400);
+    }
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     void updateNotFound() {
@@ -148,6 +552,30 @@ class TaskResourceTest {
         );
     }
 
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void deleteIfMatch() {
+        var toDelete = given()
+                .body("{\"title\":\"to-delete-if-match\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        given()
+                .header("If-Match", "\"" + toDelete.id + "-1337\"")
+                .when().delete("/api/v1/tasks/" + toDelete.id)
+                .then()
+                .statusCode(412);
+        var etag = given()
+                .when().get("/api/v1/tasks/" + toDelete.id)
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+        given()
+                .header("If-Match", etag)
+                .when().delete("/api/v1/tasks/" + toDelete.id)
+                .then()
+                .statusCode(204);
+    }
+
     @Test
     @TestSecurity(user = "user", roles = "user")
     @RunOnVertxContext
@@ -158,12 +586,16 @@ class TaskResourceTest {
                 .contentType(ContentType.JSON)
                 .post("/api/v1/tasks").as(Task.class);
 
-        given()
-                .body("\"true\"")
-                .contentType(ContentType.JSON)
-                .when().put("/api/v1/tasks/" + toSetComplete.id + "/complete")
-                .then()
-                .statusCode(200);
+        try (var sql = SqlStatements.capture()) {
+            given()
+                    .body("\"true\"")
+                    .contentType(ContentType.JSON)
+                    .when().put("/api/v1/tasks/" + toSetComplete.id + "/complete")
+                    .then()
+                    .statusCode(200);
+            assertThat(sql.matching("\\btask\\b"), contains(
+                    allOf(startsWith("update task"), containsString("returning version"))));
+        }
 
         uniAsserter.assertThat(
                 () ->
@@ -177,4 +609,119 @@ class TaskResourceTest {
                                 ))
                 );
     }
-}
\ No newline at end of file
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void requestTimeoutHeader() {
+        given()
+                .header("X-Request-Timeout", "5000")
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(200);
+        given()
+                .header("X-Request-Timeout", "1")
+                .when().get("/api/v1/tasks/search?q=anything")
+                .then()
+                .statusCode(504);
+        given()
+                .header("X-Request-Timeout", "soon")
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(400);
+        given()
+                .header("X-Request-Timeout", "0")
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(400);
+    }
+
+    /**
+     * A statement still running at the deadline is cancelled by PostgreSQL rather than only abandoned by the
+     * pipeline. The update waits for a row lock held by another connection until its statement_timeout fires.
+     */
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void deadlineCancelsRunningStatement() throws InterruptedException {
+        var task = given()
+                .body("{\"title\":\"locked-at-deadline\"}")
+                .contentType(ContentType.JSON)
+                .post("/api/v1/tasks").as(Task.class);
+        var connection = pool.getConnection().await().indefinitely();
+        var transaction = connection.begin().await().indefinitely();
+        try {
+            connection.preparedQuery("select id from task where id = $1 for update")
+                    .execute(Tuple.of(task.id))
+                    .await().indefinitely();
+            task.title = "too-late";
+            given()
+                    .header("X-Request-Timeout", "300")
+                    .body(task)
+                    .contentType(ContentType.JSON)
+                    .when().put("/api/v1/tasks/" + task.id)
+                    .then()
+                    .statusCode(504);
+            // lock_timeout would only give up after 2s
+            long waiting = lockWaiters();
+            for (int i = 0; i < 10 && waiting > 0; i++) {
+                Thread.sleep(100);
+                waiting = lockWaiters();
+            }
+            assertThat(waiting, is(0L));
+        } finally {
+            transaction.rollback().await().indefinitely();
+            connection.close().await().indefinitely();
+        }
+    }
+
+    private long lockWaiters() {
+        return pool.query("select count(*) from pg_stat_activity where wait_event_type = 'Lock'")
+                .execute().await().indefinitely()
+                .iterator().next().getLong(0);
+    }
+
+    @Test
+    void eventListenerReportsConnection() throws InterruptedException {
+        // The listener connects in the background after startup
+        var metrics = "";
+        for (int i = 0; i < 20 && !metrics.contains("task_events_connected 1.0"); i++) {
+            Thread.sleep(100);
+            metrics = given().when().get("/q/metrics").then().statusCode(200).extract().asString();
+        }
+        assertThat(metrics, containsString("task_events_connected 1.0"));
+    }
+
+    @Test
+    void reconnectBacksOffUpToCap() {
+        assertThat(TaskEvents.reconnectDelay(0), is(1000L));
+        assertThat(TaskEvents.reconnectDelay(1), is(2000L));
+        assertThat(TaskEvents.reconnectDelay(4), is(16000L));
+        assertThat(TaskEvents.reconnectDelay(5), is(30000L));
+        assertThat(TaskEvents.reconnectDelay(Integer.MAX_VALUE), is(30000L));
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void streamReceivesCommittedChanges() throws Exception {
+        final var request = HttpRequest.newBuilder(taskStream).header("Accept", "text/event-stream").build();
+        final var event = HttpClient.newHttpClient()
+                .sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenApply(response -> response.body()
+                        .filter(line -> line.startsWith("data:"))
+                        .findFirst()
+                        .orElseThrow());
+        // Keeps writing until the stream has subscribed, its events travel through LISTEN/NOTIFY after commit
+        final var writer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            writer.scheduleWithFixedDelay(() -> given()
+                    .body("{\"title\":\"to-be-streamed\"}")
+                    .contentType(ContentType.JSON)
+                    .post("/api/v1/tasks"), 0, 200, TimeUnit.MILLISECONDS);
+            assertThat(event.get(15, TimeUnit.SECONDS), allOf(
+                    containsString("\"type\":\"CREATED\""),
+                    containsString("\"user\":\"user\"")));
+        } finally {
+            writer.shutdownNow();
+            event.cancel(true);
+        }
+    }
+}
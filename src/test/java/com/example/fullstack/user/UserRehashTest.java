@@ -0,0 +1,77 @@
+package com.example.fullstack.user;
+
+import io.quarkus.elytron.security.common.BcryptUtil;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+@QuarkusTest
+@TestProfile(UserRehashTest.HigherCost.class)
+class UserRehashTest {
+
+    /**
+     * The seeded hashes use cost 10, so every login with this profile needs a re-hash.
+     */
+    public static class HigherCost implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("%test.password.hashing.cost", "11");
+        }
+    }
+
+    @Inject
+    PgPool pool;
+
+    @Inject
+    PasswordHasher passwordHasher;
+
+    @Test
+    void loginUpgradesStoredHash() throws InterruptedException {
+        assertThat(storedHash("user"), startsWith("$2a$10$"));
+        given()
+                .body("{\"name\":\"user\",\"password\":\"quarkus\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/auth/login")
+                .then()
+                .statusCode(200);
+        var hash = storedHash("user");
+        for (int i = 0; i < 50 && hash.startsWith("$2a$10$"); i++) {
+            Thread.sleep(100);
+            hash = storedHash("user");
+        }
+        assertThat(hash, startsWith("$2a$11$"));
+        given()
+                .body("{\"name\":\"user\",\"password\":\"quarkus\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/auth/login")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void onlyWeakerHashesNeedRehash() {
+        assertThat(passwordHasher.needsRehash(BcryptUtil.bcryptHash("quarkus", 10)), is(true));
+        assertThat(passwordHasher.needsRehash(BcryptUtil.bcryptHash("quarkus", 11)), is(false));
+        assertThat(passwordHasher.needsRehash(BcryptUtil.bcryptHash("quarkus", 12)), is(false));
+    }
+
+    private String storedHash(String name) {
+        return pool.preparedQuery("select password from users where name = $1")
+                .execute(Tuple.of(name))
+                .await().indefinitely()
+                .iterator().next()
+                .getString("password");
+    }
+}
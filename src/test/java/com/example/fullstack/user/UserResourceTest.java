@@ -117,6 +117,45 @@ class UserResourceTest {
                 .statusCode(409);
     }
 
+    @Test
+    @TestSecurity(user = "admin", roles = "admin")
+    void patch() {
+        var user = RestAssured.given()
+                .body("{\"name\":\"to-patch\",\"password\":\"test\",\"roles\":[\"user\"]}")
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/users")
+                .as(User.class);
+        RestAssured.given()
+                .body("{\"name\":\"patched\"}")
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "\"" + user.id + "-" + user.version + "\"")
+                .when()
+                .patch("/api/v1/users/" + user.id)
+                .then()
+                .statusCode(200)
+                .body(
+                        "name", Matchers.is("patched"),
+                        "version", Matchers.is(user.version + 1),
+                        "roles", Matchers.contains("user")
+                );
+        RestAssured.given()
+                .body("{\"name\":\"patched-again\"}")
+                .contentType("application/merge-patch+json")
+                .header("If-Match", "\"" + user.id + "-" + user.version + "\"")
+                .when()
+                .patch("/api/v1/users/" + user.id)
+                .then()
+                .statusCode(412);
+        RestAssured.given()
+                .body("{\"password\":\"secret\"}")
+                .contentType("application/merge-patch+json")
+                .when()
+                .patch("/api/v1/users/" + user.id)
+                .then()
+                .statusCode(400);
+    }
+
     @Test
     @TestSecurity(user = "admin", roles = "admin")
     @RunOnVertxContext
@@ -175,4 +214,33 @@ class UserResourceTest {
         );
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @TestSecurity(user = "cached-self", roles = "admin")
+    void getCurrentUserAfterUpdate() {
+        var user = RestAssured.given()
+                .body("{\"name\":\"cached-self\",\"password\":\"test\",\"roles\":[\"admin\"]}")
+                .contentType(ContentType.JSON)
+                .when()
+                .post("/api/v1/users")
+                .as(User.class);
+        RestAssured.given()
+                .when().get("/api/v1/users/self")
+                .then()
+                .statusCode(200)
+                .body("roles", Matchers.contains("admin"));
+        user.roles = List.of("admin", "user");
+        RestAssured.given()
+                .body(user)
+                .contentType(ContentType.JSON)
+                .when()
+                .put("/api/v1/users/" + user.id)
+                .then()
+                .statusCode(200);
+        RestAssured.given()
+                .when().get("/api/v1/users/self")
+                .then()
+                .statusCode(200)
+                .body("roles", Matchers.containsInAnyOrder("admin", "user"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.fullstack;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Strong entity tags derived from the {@code @Version} column of the entities.
+ * <p>
+ * A single entity is tagged {@code "<id>-<version>"}, a list is tagged with an aggregate computed by the
+ * database, so neither requires serialising the body.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static EntityTag of(final Long id, final int version) {
+        return new EntityTag(id + "-" + version);
+    }
+
+    public static EntityTag ofAggregate(final String prefix, final Object[] aggregate) {
+        return new EntityTag(prefix + Arrays.stream(aggregate)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-", "-", "")));
+    }
+
+    /**
+     * Extracts the version from an {@code If-Match} header for the entity with the given id.
+     *
+     * @return the expected version, {@code null} when the header is absent or {@code *}
+     * @throws WebApplicationException 412 when the header cannot match the entity
+     */
+    public static Integer expectedVersion(final String ifMatch, final long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        final var value = ifMatch.trim();
+        // Weak tags never match with If-Match, lists of tags are not issued by this API
+        if (value.startsWith("W/") || value.contains(",") || value.length() < 2
+                || !value.startsWith("\"") || !value.endsWith("\"")) {
+            throw preconditionFailed();
+        }
+        final var tag = value.substring(1, value.length() - 1);
+        final var separator = tag.lastIndexOf('-');
+        if (separator < 0 || !tag.substring(0, separator).equals(String.valueOf(id))) {
+            throw preconditionFailed();
+        }
+        try {
+            return Integer.valueOf(tag.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw preconditionFailed();
+        }
+    }
+
+    /**
+     * The response to an {@code If-Match} precondition that does not hold, RFC 9110 section 13.1.1.
+     */
+    public static WebApplicationException preconditionFailed() {
+        return new WebApplicationException(Response.Status.PRECONDITION_FAILED);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.fullstack;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.hibernate.ObjectNotFoundException;
+import org.hibernate.StaleObjectStateException;
+
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Maps persistence failures to the same statuses as the reactive application does.
+ */
+@Provider
+public class RestExceptionHandler implements ExceptionMapper<PersistenceException> {
+
+    private static final String PG_UNIQUE_VIOLATION_ERROR = "23505";
+    private static final String PG_QUERY_CANCELED_ERROR = "57014";
+    private static final String PG_LOCK_NOT_AVAILABLE_ERROR = "55P03";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @Override
+    public Response toResponse(PersistenceException exception) {
+        if (getExceptionInChain(exception, ObjectNotFoundException.class).isPresent()) {
+            return Response.status(Response.Status.NOT_FOUND).entity(exception.getMessage()).build();
+        }
+        if (getExceptionInChain(exception, OptimisticLockException.class).isPresent()
+                || getExceptionInChain(exception, StaleObjectStateException.class).isPresent()
+                || hasSqlState(exception, PG_UNIQUE_VIOLATION_ERROR)) {
+            return Response.status(Response.Status.CONFLICT).build();
+        }
+        if (hasSqlState(exception, PG_QUERY_CANCELED_ERROR)) {
+            return Response.status(Response.Status.GATEWAY_TIMEOUT).build();
+        }
+        if (hasSqlState(exception, PG_LOCK_NOT_AVAILABLE_ERROR)) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        return Response
+                .status(Response.Status.BAD_REQUEST)
+                .entity("\"" + exception.getMessage() + "\"")
+                .build();
+    }
+
+    private static boolean hasSqlState(Throwable throwable, String code) {
+        return getExceptionInChain(throwable, SQLException.class)
+                .filter(ex -> Objects.equals(ex.getSQLState(), code))
+                .isPresent();
+    }
+
+    private static <T extends Throwable> Optional<T> getExceptionInChain(Throwable throwable, Class<T> exceptionClass) {
+        while (throwable != null) {
+            if (exceptionClass.isInstance(throwable)) {
+                return Optional.of(exceptionClass.cast(throwable));
+            }
+            throwable = throwable.getCause();
+        }
+        return Optional.empty();
+    }
+}
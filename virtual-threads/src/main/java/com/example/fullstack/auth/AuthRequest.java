@@ -0,0 +1,4 @@
+package com.example.fullstack.auth;
+
+public record AuthRequest(String name, String password) {
+}
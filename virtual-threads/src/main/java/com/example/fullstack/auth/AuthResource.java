@@ -0,0 +1,31 @@
+package com.example.fullstack.auth;
+
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.annotation.security.PermitAll;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+
+@Path("/api/v1/auth")
+@RunOnVirtualThread
+@Timed(value = "rest.resource.requests", histogram = true)
+public class AuthResource {
+
+    private final AuthService authService;
+
+    @Inject
+    public AuthResource(final AuthService authService) {
+        this.authService = authService;
+    }
+
+    /**
+     * Answers the access token as the body, like the reactive login.
+     */
+    @PermitAll
+    @POST
+    @Path("/login")
+    public String login(AuthRequest request) {
+        return authService.authenticate(request);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.fullstack.auth;
+
+import com.example.fullstack.user.UserService;
+import io.quarkus.security.AuthenticationFailedException;
+import io.smallrye.jwt.build.Jwt;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.HashSet;
+
+/**
+ * Issues access tokens signed with the reactive application's key, so either application accepts them.
+ * Refresh tokens are not part of this comparison.
+ */
+@ApplicationScoped
+public class AuthService {
+
+    private final String issuer;
+    private final UserService userService;
+    private final Duration accessTokenLifetime;
+
+    @Inject
+    public AuthService(final @ConfigProperty(name = "mp.jwt.verify.issuer") String issuer,
+                       final UserService userService,
+                       final @ConfigProperty(name = "auth.access-token.lifetime", defaultValue = "PT1H")
+                       Duration accessTokenLifetime) {
+        this.issuer = issuer;
+        this.userService = userService;
+        this.accessTokenLifetime = accessTokenLifetime;
+    }
+
+    public String authenticate(final AuthRequest authRequest) {
+        final var user = userService.findByName(authRequest.name());
+        if (user == null || !userService.matches(user, authRequest.password())) {
+            throw new AuthenticationFailedException("Invalid credentials");
+        }
+        return Jwt.issuer(issuer)
+                .upn(user.name)
+                .groups(new HashSet<>(user.roles))
+                .expiresIn(accessTokenLifetime)
+                .sign();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.fullstack.project;
+
+import com.example.fullstack.user.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Blocking counterpart of the reactive application's project, mapped to the same table.
+ */
+@Entity
+@Table(name = "projects")
+@SQLRestriction("deleted is null")
+public class Project extends PanacheEntity {
+    @Column(nullable = false)
+    public String name;
+
+    @ManyToOne(optional = false)
+    public User user;
+
+    @CreationTimestamp
+    @Column(updatable = false, nullable = false)
+    public ZonedDateTime created;
+
+    @Version
+    public int version;
+
+    @JsonIgnore
+    public ZonedDateTime deleted;
+}
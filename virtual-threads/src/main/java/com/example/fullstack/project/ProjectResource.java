@@ -0,0 +1,76 @@
+package com.example.fullstack.project;
+
+import com.example.fullstack.EntityTags;
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.ResponseStatus;
+
+import java.util.List;
+
+@Path("/api/v1/projects")
+@RolesAllowed("user")
+@RunOnVirtualThread
+@Timed(value = "rest.resource.requests", histogram = true)
+public class ProjectResource {
+
+    private final ProjectService projectService;
+
+    @Inject
+    public ProjectResource(ProjectService projectService) {
+        this.projectService = projectService;
+    }
+
+    @GET
+    public List<ProjectView> get() {
+        return projectService.listForUser();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Response get(@PathParam("id") long id, @Context Request request) {
+        final var project = projectService.findById(id);
+        final var tag = EntityTags.of(project.id, project.version);
+        final var notModified = request.evaluatePreconditions(tag);
+        return (notModified != null ? notModified : Response.ok(project).tag(tag)).build();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @ResponseStatus(201)
+    public Project create(Project project) {
+        return projectService.create(project);
+    }
+
+    @PUT
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("/{id}")
+    public Response update(@PathParam("id") long id,
+                           @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                           Project project) {
+        project.id = id;
+        final var updated = projectService.update(project, EntityTags.expectedVersion(ifMatch, id));
+        return Response.ok(updated).tag(EntityTags.of(updated.id, updated.version)).build();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public void delete(@PathParam("id") long id,
+                       @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        projectService.delete(id, EntityTags.expectedVersion(ifMatch, id));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fullstack.project;
+
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.user.UserService;
+import io.quarkus.security.UnauthorizedException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.hibernate.ObjectNotFoundException;
+
+import java.util.List;
+
+/**
+ * Blocking project operations, owner-scoped like the reactive ones.
+ */
+@ApplicationScoped
+public class ProjectService {
+
+    private final UserService userService;
+
+    @Inject
+    public ProjectService(final UserService userService) {
+        this.userService = userService;
+    }
+
+    public Project findById(final long id) {
+        return Project.<Project>find("from Project p join fetch p.user u where p.id = ?1 and u.name = ?2",
+                        id, userService.getCurrentUserName())
+                .firstResultOptional()
+                .orElseGet(() -> notFoundOrNotOwned(id));
+    }
+
+    /**
+     * Only reached when the owner-scoped lookup found nothing, tells a missing project apart from someone else's.
+     */
+    private static Project notFoundOrNotOwned(final long id) {
+        if (Project.count("id", id) == 0) {
+            throw new ObjectNotFoundException(id, "Project");
+        }
+        throw new UnauthorizedException("You are not allowed to access this project");
+    }
+
+    public List<ProjectView> listForUser() {
+        return Project.getEntityManager()
+                .createQuery("select new com.example.fullstack.project.ProjectView(p.id, p.name, p.created, p.version) "
+                        + "from Project p join p.user u where u.name = :user order by p.id", ProjectView.class)
+                .setParameter("user", userService.getCurrentUserName())
+                .getResultList();
+    }
+
+    @Transactional
+    public Project create(final Project project) {
+        project.user = userService.getCurrentUser();
+        project.persistAndFlush();
+        return project;
+    }
+
+    /**
+     * Replaces the project, when {@code expectedVersion} is given only if it is still at that version.
+     */
+    @Transactional
+    public Project update(final Project project, final Integer expectedVersion) {
+        final var current = findById(project.id);
+        if (expectedVersion != null && current.version != expectedVersion) {
+            throw EntityTags.preconditionFailed();
+        }
+        project.user = current.user;
+        final var merged = Project.getEntityManager().merge(project);
+        Project.flush();
+        return merged;
+    }
+
+    /**
+     * Unassigns the project's tasks and removes it in one transaction. The reactive application hides the
+     * project and hands this to a purge job instead, see the README.
+     */
+    @Transactional
+    public void delete(final long id, final Integer expectedVersion) {
+        final var project = findById(id);
+        if (expectedVersion != null && project.version != expectedVersion) {
+            throw EntityTags.preconditionFailed();
+        }
+        Project.getEntityManager().createNativeQuery("update task set project_id = null where project_id = ?1")
+                .setParameter(1, id)
+                .executeUpdate();
+        project.delete();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.fullstack.project;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read model of a {@link Project} for list endpoints, the owner is implied by the request.
+ */
+public record ProjectView(Long id, String name, ZonedDateTime created, int version) {
+}
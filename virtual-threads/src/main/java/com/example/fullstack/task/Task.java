@@ -0,0 +1,42 @@
+package com.example.fullstack.task;
+
+import com.example.fullstack.project.Project;
+import com.example.fullstack.user.User;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Blocking counterpart of the reactive application's task, mapped to the same table.
+ */
+@Entity
+public class Task extends PanacheEntity {
+    @Column(nullable = false)
+    public String title;
+    @Column(length = 1000)
+    public String description;
+
+    public Integer priority;
+
+    @ManyToOne(optional = false)
+    public User user;
+
+    public ZonedDateTime complete;
+
+    public ZonedDateTime due;
+
+    @ManyToOne
+    public Project project;
+
+    @CreationTimestamp
+    @Column(updatable = false, nullable = false)
+    public ZonedDateTime created;
+
+    @Version
+    public int version;
+}
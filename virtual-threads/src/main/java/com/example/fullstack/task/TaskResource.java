@@ -0,0 +1,89 @@
+package com.example.fullstack.task;
+
+import com.example.fullstack.EntityTags;
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.ResponseStatus;
+
+@Path("/api/v1/tasks")
+@RolesAllowed("user")
+@RunOnVirtualThread
+@Timed(value = "rest.resource.requests", histogram = true)
+public class TaskResource {
+
+    private final TaskService taskService;
+
+    @Inject
+    public TaskResource(TaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    /**
+     * Lists all tasks of the current user, answered with 304 on a matching {@code If-None-Match} without loading
+     * them.
+     */
+    @GET
+    public Response get(@Context Request request) {
+        final var tag = taskService.listTag();
+        final var notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(taskService.listForUser()).tag(tag).build();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Response get(@PathParam("id") long id, @Context Request request) {
+        final var task = taskService.findById(id);
+        final var tag = EntityTags.of(task.id, task.version);
+        final var notModified = request.evaluatePreconditions(tag);
+        return (notModified != null ? notModified : Response.ok(task).tag(tag)).build();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @ResponseStatus(201)
+    public Task create(Task task) {
+        return taskService.create(task);
+    }
+
+    @PUT
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("/{id}")
+    public Response update(@PathParam("id") long id,
+                           @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                           Task task) {
+        task.id = id;
+        final var updated = taskService.update(task, EntityTags.expectedVersion(ifMatch, id));
+        return Response.ok(updated).tag(EntityTags.of(updated.id, updated.version)).build();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public void delete(@PathParam("id") long id,
+                       @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        taskService.delete(id, EntityTags.expectedVersion(ifMatch, id));
+    }
+
+    @PUT
+    @Path("/{id}/complete")
+    public boolean setComplete(@PathParam("id") long id, boolean complete) {
+        return taskService.setComplete(id, complete);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.fullstack.task;
+
+import com.example.fullstack.EntityTags;
+import com.example.fullstack.project.Project;
+import com.example.fullstack.project.ProjectService;
+import com.example.fullstack.user.UserService;
+import io.quarkus.security.UnauthorizedException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.core.EntityTag;
+import org.hibernate.ObjectNotFoundException;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Blocking task operations issuing the same statements as the reactive service for the shared endpoints.
+ */
+@ApplicationScoped
+public class TaskService {
+    private static final String VIEW_QUERY = "select new com.example.fullstack.task.TaskView("
+            + "t.id, t.title, t.description, t.priority, t.complete, t.due, t.created, t.version, u.id, u.name, p.id, p.name) "
+            + "from Task t join t.user u left join t.project p on p.deleted is null where u.name = :user "
+            + "order by t.created, t.id";
+
+    private final UserService userService;
+    private final ProjectService projectService;
+
+    @Inject
+    public TaskService(final UserService userService, final ProjectService projectService) {
+        this.userService = userService;
+        this.projectService = projectService;
+    }
+
+    public Task findById(final long id) {
+        return Task.<Task>find("from Task t join fetch t.user u left join fetch t.project "
+                                + "where t.id = ?1 and u.name = ?2",
+                        id, userService.getCurrentUserName())
+                .firstResultOptional()
+                .orElseGet(() -> notFoundOrNotOwned(id));
+    }
+
+    /**
+     * Only reached when the owner-scoped lookup found nothing, tells a missing task apart from someone else's.
+     */
+    private static Task notFoundOrNotOwned(final long id) {
+        if (Task.count("id", id) == 0) {
+            throw new ObjectNotFoundException(id, "Task");
+        }
+        throw new UnauthorizedException("You are not allowed to update this task");
+    }
+
+    /**
+     * Checks that a project assigned to a task is one of the current user's, no project passes.
+     */
+    private void checkProject(final Project project) {
+        if (project != null && project.id != null) {
+            projectService.findById(project.id);
+        }
+    }
+
+    public List<TaskView> listForUser() {
+        return Task.getEntityManager().createQuery(VIEW_QUERY, TaskView.class)
+                .setParameter("user", userService.getCurrentUserName())
+                .getResultList();
+    }
+
+    /**
+     * Entity tag of the current user's task list, the same aggregate as the reactive application computes.
+     */
+    public EntityTag listTag() {
+        final var aggregate = Task.getEntityManager()
+                .createQuery("select count(t.id), coalesce(sum(t.version), 0), coalesce(max(t.id), 0), "
+                        + "(select count(p.id) from Project p where p.user.name = :user), "
+                        + "(select coalesce(sum(p.version), 0) from Project p where p.user.name = :user) "
+                        + "from Task t where t.user.name = :user", Object[].class)
+                .setParameter("user", userService.getCurrentUserName())
+                .getSingleResult();
+        return EntityTags.ofAggregate("tasks", aggregate);
+    }
+
+    @Transactional
+    public Task create(final Task task) {
+        checkProject(task.project);
+        task.user = userService.getCurrentUser();
+        task.persistAndFlush();
+        return task;
+    }
+
+    /**
+     * Replaces the task, when {@code expectedVersion} is given only if it is still at that version.
+     */
+    @Transactional
+    public Task update(final Task task, final Integer expectedVersion) {
+        final var current = findById(task.id);
+        if (expectedVersion != null && current.version != expectedVersion) {
+            throw EntityTags.preconditionFailed();
+        }
+        checkProject(task.project);
+        task.user = current.user;
+        final var merged = Task.getEntityManager().merge(task);
+        Task.flush();
+        return merged;
+    }
+
+    @Transactional
+    public void delete(final long id, final Integer expectedVersion) {
+        final var task = findById(id);
+        if (expectedVersion != null && task.version != expectedVersion) {
+            throw EntityTags.preconditionFailed();
+        }
+        task.delete();
+    }
+
+    /**
+     * Sets or clears the completion timestamp with a single owner-scoped {@code update}, without loading the
+     * task first.
+     */
+    @Transactional
+    public boolean setComplete(final long id, final boolean complete) {
+        final int updated = Task.getEntityManager()
+                .createQuery("update Task set complete = :complete, version = version + 1 "
+                        + "where id = :id and user.id in (select u.id from User u where u.name = :user)")
+                .setParameter("complete", complete ? ZonedDateTime.now() : null)
+                .setParameter("id", id)
+                .setParameter("user", userService.getCurrentUserName())
+                .executeUpdate();
+        if (updated == 0) {
+            notFoundOrNotOwned(id);
+        }
+        return complete;
+    }
+}
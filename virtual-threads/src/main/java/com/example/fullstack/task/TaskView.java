@@ -0,0 +1,24 @@
+package com.example.fullstack.task;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read model of a {@link Task} for list endpoints, built by a projection query instead of loading
+ * the entity graph. Owner and project are reduced to their id and name.
+ */
+public record TaskView(Long id, String title, String description, Integer priority, ZonedDateTime complete,
+                       ZonedDateTime due, ZonedDateTime created, int version, Ref user, Ref project) {
+
+    public record Ref(Long id, String name) {
+    }
+
+    /**
+     * Constructor used by {@code select new} projections.
+     */
+    public TaskView(Long id, String title, String description, Integer priority, ZonedDateTime complete,
+                    ZonedDateTime due, ZonedDateTime created, int version, Long userId, String userName,
+                    Long projectId, String projectName) {
+        this(id, title, description, priority, complete, due, created, version, new Ref(userId, userName),
+                projectId == null ? null : new Ref(projectId, projectName));
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.fullstack.user;
+
+public record PasswordChange(String currentPassword, String newPassword) {
+}
@@ -0,0 +1,46 @@
+package com.example.fullstack.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Blocking counterpart of the reactive application's user, mapped to the same table.
+ */
+@Entity
+@Table(name = "users")
+@SQLRestriction("deleted is null")
+public class User extends PanacheEntity {
+    @Column(nullable = false)
+    public String name;
+
+    @Column(nullable = false)
+    String password;
+
+    @CreationTimestamp
+    @Column(updatable = false, nullable = false)
+    public ZonedDateTime created;
+
+    @Version
+    public int version;
+
+    @JsonIgnore
+    public ZonedDateTime deleted;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "user_roles", joinColumns =
+    @JoinColumn(name = "id"))
+    @Column(name = "role")
+    public List<String> roles;
+
+    @JsonProperty("password")
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
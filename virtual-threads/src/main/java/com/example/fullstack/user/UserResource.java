@@ -0,0 +1,67 @@
+package com.example.fullstack.user;
+
+import io.micrometer.core.annotation.Timed;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import org.jboss.resteasy.reactive.ResponseStatus;
+
+import java.util.List;
+
+@Path("/api/v1/users")
+@RolesAllowed("admin")
+@RunOnVirtualThread
+@Timed(value = "rest.resource.requests", histogram = true)
+public class UserResource {
+    private final UserService userService;
+
+    public UserResource(final UserService userService) {
+        this.userService = userService;
+    }
+
+    @GET
+    public List<User> get() {
+        return userService.getAll();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @ResponseStatus(201)
+    public User create(final User user) {
+        return userService.create(user);
+    }
+
+    @GET
+    @Path("{id}")
+    public User get(final @PathParam("id") Long id) {
+        return userService.findById(id);
+    }
+
+    @PUT
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("{id}")
+    public User update(final @PathParam("id") long id, final User user) {
+        user.id = id;
+        return userService.update(user);
+    }
+
+    @PUT
+    @Path("self/password")
+    @RolesAllowed("user")
+    public User changePassword(final PasswordChange passwordChange) {
+        return userService.changePassword(passwordChange.currentPassword(), passwordChange.newPassword());
+    }
+
+    @DELETE
+    @Path("{id}")
+    public void delete(final @PathParam("id") long id) {
+        userService.deleteById(id);
+    }
+
+    @GET
+    @Path("self")
+    public User getCurrentUser() {
+        return userService.getCurrentUser();
+    }
+}
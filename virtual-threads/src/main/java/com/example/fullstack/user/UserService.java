@@ -0,0 +1,98 @@
+package com.example.fullstack.user;
+
+import io.quarkus.elytron.security.common.BcryptUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+import org.hibernate.ObjectNotFoundException;
+
+import java.util.List;
+
+/**
+ * Blocking user operations, bcrypt runs on the calling virtual thread.
+ */
+@ApplicationScoped
+public class UserService {
+
+    private static final List<String> PURGE_STATEMENTS = List.of(
+            "delete from refresh_tokens where user_id = ?1",
+            "delete from task where user_id = ?1",
+            "update task set project_id = null where project_id in (select id from projects where user_id = ?1)",
+            "delete from projects where user_id = ?1",
+            "delete from user_roles where id = ?1",
+            "delete from users where id = ?1");
+
+    private final JsonWebToken jsonWebToken;
+    private final int hashingCost;
+
+    @Inject
+    public UserService(final JsonWebToken jsonWebToken,
+                       final @ConfigProperty(name = "password.hashing.cost", defaultValue = "10") int hashingCost) {
+        this.jsonWebToken = jsonWebToken;
+        this.hashingCost = hashingCost;
+    }
+
+    public User findById(final long id) {
+        return User.<User>findByIdOptional(id)
+                .orElseThrow(() -> new ObjectNotFoundException(id, "User with id " + id + " not found"));
+    }
+
+    public User findByName(final String name) {
+        return User.<User>find("name", name).firstResult();
+    }
+
+    public List<User> getAll() {
+        return User.listAll();
+    }
+
+    @Transactional
+    public User create(final User user) {
+        user.password = BcryptUtil.bcryptHash(user.password, hashingCost);
+        user.persistAndFlush();
+        return user;
+    }
+
+    @Transactional
+    public User update(final User user) {
+        final var current = findById(user.id);
+        user.setPassword(current.password);
+        return User.getEntityManager().merge(user);
+    }
+
+    @Transactional
+    public User changePassword(final String currentPassword, final String newPassword) {
+        final var user = getCurrentUser();
+        if (!matches(user, currentPassword)) {
+            throw new ClientErrorException("Current password does not match", Response.Status.CONFLICT);
+        }
+        user.setPassword(BcryptUtil.bcryptHash(newPassword, hashingCost));
+        return user;
+    }
+
+    /**
+     * Removes the user with its tokens, tasks and projects in one transaction. The reactive application hands
+     * this to purge jobs instead, see the README.
+     */
+    @Transactional
+    public void deleteById(final long id) {
+        findById(id);
+        final var entityManager = User.getEntityManager();
+        PURGE_STATEMENTS.forEach(sql -> entityManager.createNativeQuery(sql).setParameter(1, id).executeUpdate());
+    }
+
+    public User getCurrentUser() {
+        return findByName(jsonWebToken.getName());
+    }
+
+    public String getCurrentUserName() {
+        return jsonWebToken.getName();
+    }
+
+    public boolean matches(final User user, final String password) {
+        return BcryptUtil.matches(password, user.password);
+    }
+}
@@ -0,0 +1,25 @@
+INSERT INTO "users" ("id", "name", "password", "created", "version")
+VALUES (0, 'admin', '$2a$10$7b.9iLgXFVh.r1u9HEbMv.EDL3JcJgldsWHUg4etSUh4wCNGuExye', NOW(), 0)
+    ON CONFLICT DO NOTHING;
+INSERT INTO "user_roles" ("id", "role") VALUES (0, 'admin')
+    ON CONFLICT DO NOTHING;
+INSERT INTO "user_roles" ("id", "role") VALUES (0, 'user')
+    ON CONFLICT DO NOTHING;
+INSERT INTO "users" ("id", "name", "password", "created", "version")
+VALUES (1, 'user', '$2a$10$7b.9iLgXFVh.r1u9HEbMv.EDL3JcJgldsWHUg4etSUh4wCNGuExye', NOW(), 0)
+    ON CONFLICT DO NOTHING;
+INSERT INTO "user_roles" ("id", "role") VALUES (1, 'user')
+    ON CONFLICT DO NOTHING;
+INSERT INTO "projects" ("id", "name", "user_id", "created", "version")
+VALUES (0, 'Work', 1, NOW(), 0)
+    ON CONFLICT DO NOTHING;
+SELECT setval('users_SEQ', 1);
+
+ALTER TABLE task ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', coalesce(title, '') || ' ' || coalesce(description, ''))) STORED;
+CREATE INDEX IF NOT EXISTS task_search_idx ON task USING gin (search_vector);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_name_key ON users (name) WHERE deleted IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS projects_user_name_key ON projects (user_id, name) WHERE deleted IS NULL;
+
+ALTER SEQUENCE IF EXISTS hibernate_sequence RESTART WITH 10;
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.example.fullstack.task;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import io.restassured.http.ContentType;
+import org.hamcrest.Matcher;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * The endpoints the load test drives, answered like the reactive application answers them.
+ */
+@QuarkusTest
+class TaskResourceTest {
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void list() {
+        given()
+                .body("{\"title\":\"to-be-listed\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks")
+                .then()
+                .statusCode(201);
+        final var etag = given()
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(200)
+                .body("$", allOf(
+                        hasItem(hasEntry("title", "to-be-listed")),
+                        everyItem(hasEntry(is("user"), (Matcher) hasEntry("name", "user")))))
+                .extract().header("ETag");
+        given()
+                .header("If-None-Match", etag)
+                .when().get("/api/v1/tasks")
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void completeAndDelete() {
+        final int id = given()
+                .body("{\"title\":\"to-complete\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+        given()
+                .body("true")
+                .contentType(ContentType.JSON)
+                .when().put("/api/v1/tasks/" + id + "/complete")
+                .then()
+                .statusCode(200);
+        given()
+                .when().get("/api/v1/tasks/" + id)
+                .then()
+                .statusCode(200)
+                .body("complete", notNullValue())
+                .body("version", is(1));
+        given()
+                .when().delete("/api/v1/tasks/" + id)
+                .then()
+                .statusCode(204);
+        given()
+                .when().get("/api/v1/tasks/" + id)
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @TestSecurity(user = "user", roles = "user")
+    void staleIfMatchRejected() {
+        final int id = given()
+                .body("{\"title\":\"versioned\"}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+        given()
+                .body("{\"title\":\"versioned-2\"}")
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"" + id + "-5\"")
+                .when().put("/api/v1/tasks/" + id)
+                .then()
+                .statusCode(412);
+        given()
+                .body("{\"title\":\"versioned-2\"}")
+                .contentType(ContentType.JSON)
+                .header("If-Match", "\"" + id + "-0\"")
+                .when().put("/api/v1/tasks/" + id)
+                .then()
+                .statusCode(200)
+                .header("ETag", not(is("\"" + id + "-0\"")));
+    }
+
+    @Test
+    @TestSecurity(user = "admin", roles = "user")
+    void otherUsersTaskRejected() {
+        // project 0 belongs to "user", see import-dev.sql
+        given()
+                .body("{\"title\":\"foreign\",\"project\":{\"id\":0}}")
+                .contentType(ContentType.JSON)
+                .when().post("/api/v1/tasks")
+                .then()
+                .statusCode(401);
+    }
+}